@@ -0,0 +1,25 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * benchmarks.jar 的入口。参数原样交给 JMH，只是在没有指定 -rf 时默认输出 JSON 结果（jmh-result.json），
+ * 方便跨版本对比。
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add("-rf");
+            options.add("json");
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
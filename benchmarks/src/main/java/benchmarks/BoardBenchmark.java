@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 每走一步都会调用的 GamePanel.isPuzzleSolved。已完成的棋盘要扫描全部方块，是最坏情况；
+ * 打乱的棋盘通常在前几块就返回。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BoardBenchmark {
+    @Param({"3", "8", "16"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean solved;
+
+    private Object panel;
+
+    @Setup
+    public void setup() {
+        panel = Puzzle.panel(size, size);
+        if (solved) {
+            Puzzle.arrangeSolved(panel);
+        }
+    }
+
+    @Benchmark
+    public boolean isPuzzleSolved() {
+        return Puzzle.isPuzzleSolved(panel);
+    }
+}
@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 用 PuzzleSolver 求解一组由 seed 固定的随机 3x3 局面，每次操作解完整组。
+ * heuristic 为 default 时走游戏实际使用的完整距离表，为估值类名时强制走 IDA*。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EightPuzzleBenchmark {
+    @Param({"1", "2", "3"})
+    public long seed;
+
+    @Param({"100"})
+    public int count;
+
+    @Param({"default", "LinearConflictHeuristic"})
+    public String heuristic;
+
+    private Object[] solvers;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(seed);
+        Object estimate = "default".equals(heuristic) ? null : Puzzle.heuristic(heuristic, 3, 3);
+        solvers = new Object[count];
+        for (int i = 0; i < count; i++) {
+            solvers[i] = Puzzle.solver(3, 3, Puzzle.randomState(3, 3, random), estimate, 1);
+        }
+    }
+
+    /**
+     * 返回总步数，交给 JMH 防止求解被优化掉。
+     */
+    @Benchmark
+    public int solveSuite() {
+        int moves = 0;
+        for (Object solver : solvers) {
+            moves += Puzzle.solve(solver);
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 各估值函数对整盘求值（init + value）的耗时，依次轮换一组随机局面，避免只测到同一局面的缓存命中。
+ * AdditivePatternDatabase 只有 4x4 和 5x5 有预设划分。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx2g"})
+public class HeuristicBenchmark {
+    private static final int STATES = 1024;
+
+    @Param({"ManhattanHeuristic", "LinearConflictHeuristic", "WalkingDistanceHeuristic", "AdditivePatternDatabase"})
+    public String heuristic;
+
+    @Param({"4"})
+    public int size;
+
+    private Object estimate;
+    private int[][] states;
+    private int next;
+
+    @Setup
+    public void setup() {
+        estimate = "AdditivePatternDatabase".equals(heuristic)
+                ? Puzzle.defaultHeuristic(size, size)
+                : Puzzle.heuristic(heuristic, size, size);
+        SplittableRandom random = new SplittableRandom(42);
+        states = new int[STATES][];
+        for (int i = 0; i < STATES; i++) {
+            states[i] = Puzzle.randomState(size, size, random);
+        }
+    }
+
+    @Benchmark
+    public int estimate() {
+        int[] state = states[next];
+        next = (next + 1) & (STATES - 1);
+        return Puzzle.estimate(estimate, state);
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 用 PuzzleSolver 按默认估值（6-6-3 模式数据库）求解 Korf 的 15 数码测试集，每次操作解完所选的全部题目，
+ * 并核对每题步数等于已知最优步数。
+ * 模式数据库在 setup 中加载，第一次运行时需要先构建。
+ * 用 -p instances=1,17,88 逐题分别测量，用 -p instances="1;17;88" 把几题合为一次操作。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx2g"})
+public class KorfBenchmark {
+    @Param({"all"})
+    public String instances;
+
+    /** 0 表示使用求解器的默认并行度 */
+    @Param({"0"})
+    public int parallelism;
+
+    private Object[] solvers;
+    private int[] optimal;
+
+    @Setup
+    public void setup() {
+        Set<Integer> selected = new HashSet<>();
+        if (!"all".equals(instances)) {
+            for (String id : instances.split(";")) {
+                selected.add(Integer.parseInt(id.trim()));
+            }
+        }
+        Object heuristic = Puzzle.defaultHeuristic(4, 4);
+        List<Object> chosen = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        for (Object[] instance : Puzzle.korfInstances()) {
+            if (selected.isEmpty() || selected.contains((Integer) instance[0])) {
+                chosen.add(Puzzle.solver(4, 4, (int[]) instance[2], heuristic, parallelism));
+                lengths.add((Integer) instance[1]);
+            }
+        }
+        if (chosen.isEmpty()) {
+            throw new IllegalArgumentException("No Korf instances selected: " + instances);
+        }
+        solvers = chosen.toArray();
+        optimal = new int[lengths.size()];
+        for (int i = 0; i < optimal.length; i++) {
+            optimal[i] = lengths.get(i);
+        }
+    }
+
+    @Benchmark
+    public int solveAll() {
+        int moves = 0;
+        for (int i = 0; i < solvers.length; i++) {
+            int length = Puzzle.solve(solvers[i]);
+            if (length != optimal[i]) {
+                throw new IllegalStateException("Expected " + optimal[i] + " moves, got " + length);
+            }
+            moves += length;
+        }
+        return moves;
+    }
+}
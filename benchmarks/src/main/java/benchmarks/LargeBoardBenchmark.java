@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 超过 36 格的棋盘按 SolverEngine.select 的选择逐行逐列归约求解，包括 2xN、Nx2 这样的长条。
+ * 每次操作解完固定种子的一组局面，并逐步回放核对每个解确实走到目标局面。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LargeBoardBenchmark {
+    private static final int BOARDS = 8;
+
+    @Param({"2x19", "19x2", "2x50", "10x10", "30x30"})
+    public String board;
+
+    private int rows;
+    private int cols;
+    private int[][] states;
+    private Object solver;
+
+    @Setup
+    public void setup() {
+        int separator = board.indexOf('x');
+        rows = Integer.parseInt(board.substring(0, separator));
+        cols = Integer.parseInt(board.substring(separator + 1));
+        SplittableRandom random = new SplittableRandom(7);
+        states = new int[BOARDS][];
+        for (int i = 0; i < BOARDS; i++) {
+            states[i] = Puzzle.randomState(rows, cols, random);
+        }
+        solver = Puzzle.boardSolver(rows, cols);
+    }
+
+    @Benchmark
+    public int solveAll() {
+        int moves = 0;
+        for (int[] state : states) {
+            int[] solution = Puzzle.solveSelected(solver, rows, cols, state, 0);
+            if (solution == null) {
+                throw new IllegalStateException("No solution for a solvable " + board + " board");
+            }
+            verify(state, solution);
+            moves += solution.length;
+        }
+        return moves;
+    }
+
+    /**
+     * 在副本上回放，每一步都必须与空格相邻，最后必须是目标局面。
+     */
+    private void verify(int[] state, int[] solution) {
+        int[] board = state.clone();
+        int blank = 0;
+        while (board[blank] != 0) {
+            blank++;
+        }
+        for (int move : solution) {
+            if (Math.abs(move / cols - blank / cols) + Math.abs(move % cols - blank % cols) != 1) {
+                throw new IllegalStateException("Cell " + move + " is not next to the blank at " + blank);
+            }
+            board[blank] = board[move];
+            board[move] = 0;
+            blank = move;
+        }
+        for (int pos = 0; pos < board.length - 1; pos++) {
+            if (board[pos] != pos + 1) {
+                throw new IllegalStateException("Solution does not reach the goal on " + this.board);
+            }
+        }
+    }
+}
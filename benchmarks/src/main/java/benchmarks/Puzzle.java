@@ -0,0 +1,374 @@
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * 游戏代码都在默认包里，而 JMH 要求基准类有包名，Java 源码又无法从具名包引用默认包的类，
+ * 因此这里在加载时用反射取得方法句柄，参数和返回值统一擦除为 Object。
+ * 句柄保存在 static final 字段中，JIT 会把 invokeExact 内联成直接调用，不影响测量结果。
+ */
+final class Puzzle {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodHandle NEW_PIECE = constructor("PuzzlePiece",
+            BufferedImage.class, int.class, int.class, int.class, int.class, int.class, int.class);
+    private static final MethodHandle SET_POSITION = method("PuzzlePiece", "setCurrentPosition", int.class, int.class);
+    private static final MethodHandle GET_CORRECT_ROW = method("PuzzlePiece", "getCorrectRow");
+    private static final MethodHandle GET_CORRECT_COL = method("PuzzlePiece", "getCorrectCol");
+    private static final MethodHandle NEW_SOLVER = constructor("PuzzleSolver", List.class, int.class, int.class);
+    private static final MethodHandle SOLVE = method("PuzzleSolver", "solve");
+    private static final MethodHandle SET_HEURISTIC = method("PuzzleSolver", "setHeuristic", type("Heuristic"));
+    private static final MethodHandle SET_PARALLELISM = method("PuzzleSolver", "setParallelism", int.class);
+    private static final MethodHandle SET_SOLUTION_CACHE = method("PuzzleSolver", "setSolutionCache", type("SolutionCache"));
+    private static final MethodHandle NEW_BOARD_SOLVER = constructor("BoardSolver", int.class, int.class);
+    private static final MethodHandle BOARD_SOLVE = method("BoardSolver", "solve",
+            int[].class, type("SolverEngine"), ObjDoubleConsumer.class);
+    private static final MethodHandle BOARD_SET_PARALLELISM = method("BoardSolver", "setParallelism", int.class);
+    private static final MethodHandle BOARD_SET_SOLUTION_CACHE = method("BoardSolver", "setSolutionCache", type("SolutionCache"));
+    private static final MethodHandle SELECT_ENGINE = staticMethod("SolverEngine", "select", int.class, int.class, long.class);
+    private static final MethodHandle IS_SOLVABLE = staticMethod("PuzzleParity", "isSolvable", int.class, int.class, int[].class);
+    private static final MethodHandle FOR_BOARD = staticMethod("Heuristic", "forBoard", int.class, int.class);
+    private static final MethodHandle ESTIMATE = method("Heuristic", "estimate", int[].class);
+    private static final MethodHandle NEW_PANEL = constructor("GamePanel",
+            type("PuzzleGame"), BufferedImage.class, int.class, int.class);
+    private static final MethodHandle IS_PUZZLE_SOLVED = method("GamePanel", "isPuzzleSolved");
+    private static final MethodHandle GET_PIECES = getter("GamePanel", "puzzlePieces");
+    private static final int PUZZLE_WIDTH = 400;
+    private static final int PUZZLE_HEIGHT = 300;
+
+    private Puzzle() {
+    }
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Game class not on classpath: " + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(String owner, Class<?>... parameters) {
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(type(owner), MethodType.methodType(void.class, parameters));
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle staticMethod(String owner, String name, Class<?>... parameters) {
+        try {
+            Method method = type(owner).getDeclaredMethod(name, parameters);
+            method.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflect(method);
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 实例方法，私有方法同样可以取到；引用类型擦除为 Object，基本类型保持不变。
+     */
+    private static MethodHandle method(String owner, String name, Class<?>... parameters) {
+        try {
+            Class<?> type = type(owner);
+            Method method = findMethod(type, name, parameters);
+            method.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflect(method);
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameters) throws NoSuchMethodException {
+        try {
+            return type.getDeclaredMethod(name, parameters);
+        } catch (NoSuchMethodException e) {
+            return type.getMethod(name, parameters);
+        }
+    }
+
+    private static MethodHandle getter(String owner, String name) {
+        try {
+            Field field = type(owner).getDeclaredField(name);
+            field.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectGetter(field);
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodType erase(MethodType type) {
+        MethodType erased = type;
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (!type.parameterType(i).isPrimitive()) {
+                erased = erased.changeParameterType(i, Object.class);
+            }
+        }
+        if (!type.returnType().isPrimitive()) {
+            erased = erased.changeReturnType(Object.class);
+        }
+        return erased;
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+
+    /**
+     * 由 state[pos] = tile（方块编号为正确位置 + 1，0 为空格）构造拼图块，与游戏里的方块一样带图片，空格没有图片。
+     */
+    static List<Object> pieces(int rows, int cols, int[] state) {
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        int width = PUZZLE_WIDTH / cols;
+        int height = PUZZLE_HEIGHT / rows;
+        List<Object> pieces = new ArrayList<>(state.length);
+        try {
+            for (int pos = 0; pos < state.length; pos++) {
+                int correct = state[pos] == 0 ? state.length - 1 : state[pos] - 1;
+                int col = correct % cols;
+                int row = correct / cols;
+                Object piece = (Object) NEW_PIECE.invokeExact((Object) (state[pos] == 0 ? null : image),
+                        col * width, row * height, width, height, col, row);
+                SET_POSITION.invokeExact(piece, pos / cols, pos % cols);
+                pieces.add(piece);
+            }
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+        return pieces;
+    }
+
+    /**
+     * 不带解缓存的求解器，否则同一局面从第二次起都只是查表。
+     */
+    static Object solver(int rows, int cols, int[] state, Object heuristic, int parallelism) {
+        try {
+            Object solver = (Object) NEW_SOLVER.invokeExact((Object) pieces(rows, cols, state), rows, cols);
+            SET_SOLUTION_CACHE.invokeExact(solver, (Object) null);
+            if (heuristic != null) {
+                SET_HEURISTIC.invokeExact(solver, heuristic);
+            }
+            if (parallelism > 0) {
+                SET_PARALLELISM.invokeExact(solver, parallelism);
+            }
+            return solver;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * 同步求解，返回解的步数。
+     */
+    static int solve(Object solver) {
+        try {
+            List<?> moves = (List<?>) (Object) SOLVE.invokeExact(solver);
+            if (moves == null) {
+                throw new IllegalStateException("Solver returned no solution");
+            }
+            return moves.size();
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * 无界面求解用的 BoardSolver，单线程、不带解缓存。
+     */
+    static Object boardSolver(int rows, int cols) {
+        try {
+            Object solver = (Object) NEW_BOARD_SOLVER.invokeExact(rows, cols);
+            BOARD_SET_PARALLELISM.invokeExact(solver, 1);
+            BOARD_SET_SOLUTION_CACHE.invokeExact(solver, (Object) null);
+            return solver;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * 按 SolverEngine.select(rows, cols, budgetMillis) 选出的方式求解，返回依次移入空格的方块位置，找不到解时返回 null。
+     */
+    static int[] solveSelected(Object solver, int rows, int cols, int[] state, long budgetMillis) {
+        try {
+            Object engine = (Object) SELECT_ENGINE.invokeExact(rows, cols, budgetMillis);
+            return (int[]) (Object) BOARD_SOLVE.invokeExact(solver, (Object) state, engine, (Object) null);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean isSolvable(int rows, int cols, int[] state) {
+        try {
+            return (boolean) IS_SOLVABLE.invokeExact(rows, cols, (Object) state);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object defaultHeuristic(int rows, int cols) {
+        try {
+            return (Object) FOR_BOARD.invokeExact(rows, cols);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * 按类名构造 (rows, cols) 形式的估值函数。
+     */
+    static Object heuristic(String className, int rows, int cols) {
+        try {
+            MethodHandle handle = constructor(className, int.class, int.class);
+            return (Object) handle.invokeExact(rows, cols);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int estimate(Object heuristic, int[] board) {
+        try {
+            return (int) ESTIMATE.invokeExact(heuristic, (Object) board);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * 不挂在窗口上的游戏面板，需要在 headless 模式下运行。
+     */
+    static Object panel(int rows, int cols) {
+        BufferedImage image = new BufferedImage(PUZZLE_WIDTH, PUZZLE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        try {
+            return (Object) NEW_PANEL.invokeExact((Object) null, (Object) image, rows, cols);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * 把面板上的方块全部放回正确位置。
+     */
+    static void arrangeSolved(Object panel) {
+        try {
+            for (Object piece : (List<?>) (Object) GET_PIECES.invokeExact(panel)) {
+                SET_POSITION.invokeExact(piece, (int) GET_CORRECT_ROW.invokeExact(piece), (int) GET_CORRECT_COL.invokeExact(piece));
+            }
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean isPuzzleSolved(Object panel) {
+        try {
+            return (boolean) IS_PUZZLE_SOLVED.invokeExact(panel);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * 以 seed 生成的均匀随机可解局面：先随机排列，逆序数奇偶不对时交换两个非空格方块。
+     */
+    static int[] randomState(int rows, int cols, SplittableRandom random) {
+        int size = rows * cols;
+        int[] state = new int[size];
+        for (int i = 0; i < size; i++) {
+            state[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tile = state[i];
+            state[i] = state[j];
+            state[j] = tile;
+        }
+        if (!solvable(rows, cols, state)) {
+            int a = state[0] == 0 ? 2 : 0;
+            int b = state[1] == 0 ? 2 : 1;
+            int tile = state[a];
+            state[a] = state[b];
+            state[b] = tile;
+        }
+        return state;
+    }
+
+    /**
+     * 逆序数判定，只用于生成测试局面。
+     */
+    static boolean solvable(int rows, int cols, int[] state) {
+        int inversions = 0;
+        int blankRow = 0;
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] == 0) {
+                blankRow = i / cols;
+                continue;
+            }
+            for (int j = i + 1; j < state.length; j++) {
+                if (state[j] != 0 && state[i] > state[j]) {
+                    inversions++;
+                }
+            }
+        }
+        if (cols % 2 == 1) {
+            return inversions % 2 == 0;
+        }
+        return ((rows - blankRow) % 2 == 1) == (inversions % 2 == 0);
+    }
+
+    /**
+     * 读取 korf100.txt。Korf 的目标局面空格在左上角、方块 t 在第 t 格，
+     * 把棋盘旋转 180 度并把方块 t 改记为 16 - t，就得到本游戏空格在右下角的目标，最优步数不变。
+     *
+     * @return 每项为 {编号, 最优步数, 局面}，局面为 int[]
+     */
+    static List<Object[]> korfInstances() {
+        List<Object[]> instances = new ArrayList<>();
+        try (InputStream in = Puzzle.class.getResourceAsStream("/korf100.txt")) {
+            if (in == null) {
+                throw new IllegalStateException("korf100.txt not found");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                int[] state = new int[16];
+                for (int pos = 0; pos < 16; pos++) {
+                    int tile = Integer.parseInt(fields[pos + 2]);
+                    state[15 - pos] = tile == 0 ? 0 : 16 - tile;
+                }
+                instances.add(new Object[]{Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), state});
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read korf100.txt", e);
+        }
+        return instances;
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 棋盘生成和求解共用的可解性判定（PuzzleParity.isSolvable）的耗时，棋盘从 3x3 到 100x100。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SolvabilityBenchmark {
+    private static final int BOARDS = 16;
+
+    @Param({"3", "4", "8", "16", "100"})
+    public int size;
+
+    private int[][] states;
+    private int next;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(7);
+        states = new int[BOARDS][];
+        for (int i = 0; i < BOARDS; i++) {
+            states[i] = Puzzle.randomState(size, size, random);
+        }
+    }
+
+    @Benchmark
+    public boolean isSolvable() {
+        int[] state = states[next];
+        next = (next + 1) & (BOARDS - 1);
+        return Puzzle.isSolvable(size, size, state);
+    }
+}
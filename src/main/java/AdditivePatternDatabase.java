@@ -0,0 +1,176 @@
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 互不相交的模式数据库之和：4x4 使用 6-6-3 划分，5x5 使用 6-6-6-6 划分。
+ * 各模式的表通过 {@link PatternDatabaseStore} 从磁盘映射，首次需要某个尺寸时才加载，进程内只加载一次。
+ * 加载（可能要先构建）在专门的后台线程上进行，每个尺寸发布一个 future，不持有任何锁，
+ * 查询是否可用的调用方不会被正在进行的构建挡住。
+ */
+public class AdditivePatternDatabase implements Heuristic {
+    private static final Map<String, CompletableFuture<AdditivePatternDatabase>> LOADS = new ConcurrentHashMap<>();
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pattern-database");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final int[][] PARTITION_4X4 = {
+            {1, 2, 5, 6, 9, 10},
+            {3, 4, 7, 8, 11, 12},
+            {13, 14, 15}
+    };
+
+    private static final int[][] PARTITION_5X5 = {
+            {1, 2, 3, 6, 7, 8},
+            {4, 5, 9, 10, 14, 15},
+            {11, 12, 13, 16, 17, 21},
+            {18, 19, 20, 22, 23, 24}
+    };
+
+    private final int size;
+    private final PatternDatabase[] patterns;
+    private final PatternDatabase[] patternOfTile;
+
+    public AdditivePatternDatabase(PatternDatabase... patterns) {
+        this.size = patterns[0].getRows() * patterns[0].getCols();
+        this.patterns = patterns.clone();
+        this.patternOfTile = new PatternDatabase[size];
+        for (PatternDatabase pattern : patterns) {
+            for (int tile : pattern.getTiles()) {
+                patternOfTile[tile] = pattern;
+            }
+        }
+    }
+
+    /**
+     * 返回该尺寸对应的数据库，没有预设划分的尺寸返回 null。需要构建时等待构建完成。
+     */
+    public static AdditivePatternDatabase forBoard(int rows, int cols) {
+        CompletableFuture<AdditivePatternDatabase> load = load(rows, cols);
+        if (load == null) {
+            return null;
+        }
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 在后台开始加载该尺寸的数据库（已经开始则复用），立即返回；没有预设划分的尺寸返回 null。
+     * 加载失败的 future 会被移除，下次调用重新尝试。
+     */
+    public static CompletableFuture<AdditivePatternDatabase> load(int rows, int cols) {
+        int[][] partition = partitionFor(rows, cols);
+        if (partition == null) {
+            return null;
+        }
+        String key = rows + "x" + cols;
+        CompletableFuture<AdditivePatternDatabase> load = LOADS.computeIfAbsent(key, k ->
+                CompletableFuture.supplyAsync(() -> {
+                    PatternDatabaseStore store = PatternDatabaseStore.getDefault();
+                    PatternDatabase[] patterns = new PatternDatabase[partition.length];
+                    for (int i = 0; i < partition.length; i++) {
+                        patterns[i] = store.load(rows, cols, partition[i]);
+                    }
+                    return new AdditivePatternDatabase(patterns);
+                }, LOADER));
+        load.whenComplete((database, error) -> {
+            if (error != null) {
+                LOADS.remove(key, load);
+            }
+        });
+        return load;
+    }
+
+    /**
+     * 该尺寸的数据库是否无需构建即可使用：已经加载过，或者所有模式的文件都已在磁盘上。
+     * 正在构建时返回 false，不等待。
+     */
+    public static boolean isAvailable(int rows, int cols) {
+        int[][] partition = partitionFor(rows, cols);
+        if (partition == null) {
+            return false;
+        }
+        CompletableFuture<AdditivePatternDatabase> load = LOADS.get(rows + "x" + cols);
+        if (load != null) {
+            return load.isDone() && !load.isCompletedExceptionally();
+        }
+        PatternDatabaseStore store = PatternDatabaseStore.getDefault();
+        for (int[] tiles : partition) {
+            if (!Files.isRegularFile(store.fileFor(rows, cols, tiles))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int[][] partitionFor(int rows, int cols) {
+        if (rows == 4 && cols == 4) {
+            return PARTITION_4X4;
+        }
+        if (rows == 5 && cols == 5) {
+            return PARTITION_5X5;
+        }
+        return null;
+    }
+
+    /**
+     * @param positions 以方块编号为下标的当前位置数组（长度为格子数）
+     */
+    public int distance(int[] positions) {
+        int h = 0;
+        for (PatternDatabase pattern : patterns) {
+            h += pattern.getDistance(positions);
+        }
+        return h;
+    }
+
+    @Override
+    public long init(int[] board) {
+        int[] positions = new int[size];
+        for (int pos = 0; pos < board.length; pos++) {
+            positions[board[pos]] = pos;
+        }
+        return distance(positions);
+    }
+
+    /**
+     * 只有被移动方块所属的模式需要重新查表。
+     */
+    @Override
+    public long update(long state, int[] board, int[] positions, int tile, int from, int to) {
+        PatternDatabase pattern = patternOfTile[tile];
+        if (pattern == null) {
+            return state;
+        }
+        int after = pattern.getDistance(positions);
+        positions[tile] = from;
+        int before = pattern.getDistance(positions);
+        positions[tile] = to;
+        return state - before + after;
+    }
+
+    @Override
+    public int value(long state) {
+        return (int) state;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
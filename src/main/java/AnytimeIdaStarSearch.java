@@ -0,0 +1,221 @@
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 随时可停的次优搜索：依次以递减的权重 w 运行加权 IDA*（f = g + w * h），权重很大时几乎是贪心搜索，
+ * 几毫秒内就能给出一个解；之后每一轮只接受比当前最好解更短的路径（g + h 不小于最好解长度的节点直接剪掉），
+ * 最后一轮 w = 1 即普通 IDA*，跑完就证明了最优。
+ * 以权重 w 找到的解长度不超过 w 倍最优解长度，据此以及 w = 1 时每轮失败的阈值维护最优解长度的下界。
+ */
+public class AnytimeIdaStarSearch {
+    /** 权重以百分比表示，f 值统一放大 100 倍，避免浮点运算 */
+    private static final int[] WEIGHTS_PERCENT = {500, 300, 200, 150, 125, 110, 100};
+    private static final int SCALE = 100;
+    private static final int FOUND = -1;
+    private static final int STOPPED = -2;
+    private static final int STOP_CHECK_MASK = 0xFFF;
+
+    private final int size;
+    private final Heuristic heuristic;
+    private final int[] tiles;
+    private final int[] positions;
+    private final int[][] neighbors;
+
+    private int blank;
+    private int misplaced;
+    private int weight;
+    private int[] path = new int[128];
+    private int[] best;
+    private int lowerBound;
+    private long nodesExpanded;
+    private int iterations;
+    private long elapsedNanos;
+    private BooleanSupplier stopCondition;
+
+    public AnytimeIdaStarSearch(int rows, int cols, Heuristic heuristic) {
+        this.size = rows * cols;
+        this.heuristic = heuristic;
+        this.tiles = new int[size];
+        this.positions = new int[size];
+        this.neighbors = new int[size][];
+        for (int pos = 0; pos < size; pos++) {
+            int row = pos / cols;
+            int col = pos % cols;
+            int[] buffer = new int[4];
+            int count = 0;
+            if (row > 0) buffer[count++] = pos - cols;
+            if (row < rows - 1) buffer[count++] = pos + cols;
+            if (col > 0) buffer[count++] = pos - 1;
+            if (col < cols - 1) buffer[count++] = pos + 1;
+            neighbors[pos] = Arrays.copyOf(buffer, count);
+        }
+    }
+
+    /**
+     * 求解给定棋盘，返回停止时找到的最短解（依次移入空格的方块位置），一个解都没找到时返回 null。
+     * 每找到更短的解就调用一次 listener，参数为该解和当时已证明的最优解长度下界。
+     */
+    public int[] solve(int[] state, ObjIntConsumer<int[]> listener) {
+        nodesExpanded = 0;
+        iterations = 0;
+        best = null;
+        long start = System.nanoTime();
+        try {
+            long initial = load(state);
+            lowerBound = heuristic.value(initial);
+            for (int w : WEIGHTS_PERCENT) {
+                weight = w;
+                int threshold = w * heuristic.value(initial);
+                while (true) {
+                    iterations++;
+                    load(state);
+                    ensurePathCapacity(threshold / SCALE + 1);
+                    int result = search(0, threshold, -1, initial);
+                    if (result == STOPPED) {
+                        return best;
+                    }
+                    if (result == FOUND) {
+                        // 加权搜索的解不超过 w 倍最优，最优解长度至少是 len / w
+                        lowerBound = Math.max(lowerBound, (best.length * SCALE + w - 1) / w);
+                        if (best.length <= lowerBound) {
+                            lowerBound = best.length;
+                        }
+                        if (listener != null) {
+                            listener.accept(best.clone(), lowerBound);
+                        }
+                        break;
+                    }
+                    if (result == Integer.MAX_VALUE) {
+                        // 剪枝后整棵树都搜完了：不存在比当前解更短的解
+                        if (best != null) {
+                            lowerBound = best.length;
+                        }
+                        return best;
+                    }
+                    if (w == SCALE) {
+                        // 普通 IDA* 的一轮失败证明最优解长度超过本轮阈值
+                        lowerBound = Math.max(lowerBound, result / SCALE);
+                    }
+                    threshold = result;
+                }
+                if (lowerBound == best.length) {
+                    return best;
+                }
+            }
+            return best;
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * 设置后每隔若干节点检查一次，条件成立时返回目前为止最好的解。
+     */
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    private long load(int[] state) {
+        blank = -1;
+        misplaced = 0;
+        for (int pos = 0; pos < size; pos++) {
+            tiles[pos] = state[pos];
+            positions[state[pos]] = pos;
+            if (state[pos] == 0) {
+                blank = pos;
+            } else if (state[pos] != pos + 1) {
+                misplaced++;
+            }
+        }
+        if (blank < 0) {
+            throw new IllegalArgumentException("No empty cell in state");
+        }
+        return heuristic.init(tiles);
+    }
+
+    private void ensurePathCapacity(int capacity) {
+        if (path.length < capacity) {
+            path = Arrays.copyOf(path, Math.max(capacity, path.length * 2));
+        }
+    }
+
+    private int search(int g, int threshold, int previous, long estimate) {
+        if ((++nodesExpanded & STOP_CHECK_MASK) == 0 && stopCondition != null && stopCondition.getAsBoolean()) {
+            return STOPPED;
+        }
+        int h = heuristic.value(estimate);
+        if (best != null && g + h >= best.length) {
+            return Integer.MAX_VALUE;
+        }
+        int f = g * SCALE + weight * h;
+        if (f > threshold) {
+            return f;
+        }
+        if (misplaced == 0) {
+            best = Arrays.copyOf(path, g);
+            return FOUND;
+        }
+        int min = Integer.MAX_VALUE;
+        int emptyPos = blank;
+        for (int next : neighbors[emptyPos]) {
+            // 不走回头路
+            if (next == previous) {
+                continue;
+            }
+            int tile = tiles[next];
+            move(tile, next, emptyPos);
+            path[g] = next;
+
+            int result = search(g + 1, threshold, emptyPos, heuristic.update(estimate, tiles, positions, tile, next, emptyPos));
+
+            move(tile, emptyPos, next);
+            if (result < 0) {
+                return result;
+            }
+            if (result < min) {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+    private void move(int tile, int from, int to) {
+        if (from == tile - 1) {
+            misplaced++;
+        } else if (to == tile - 1) {
+            misplaced--;
+        }
+        tiles[to] = tile;
+        tiles[from] = 0;
+        positions[tile] = to;
+        positions[0] = from;
+        blank = from;
+    }
+
+    /**
+     * 当前最好解长度相对最优解的上界倍数，1.0 表示已证明最优。
+     */
+    public double getSuboptimalityBound() {
+        return best == null || lowerBound == 0 ? 1.0 : (double) best.length / lowerBound;
+    }
+
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * 所有权重下运行的阈值轮数之和。
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,301 @@
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 无界面的批量求解入口，只用到 {@link BoardSolver}，不加载 AWT。
+ * <pre>
+ * java -cp PuzzleGame.jar BatchSolver [-t 线程数] [--timeout 毫秒] [--cache] [文件|-]
+ * </pre>
+ * 从文件或标准输入逐行读入棋盘：方块编号为正确位置 + 1、0 为空格，按行排列，以空白或逗号分隔；
+ * 行首可以写 "4x4" 这样的尺寸，省略时按方块个数取正方形。空行和以 # 开头的行跳过。
+ * 棋盘分给工作线程并行求解（每个棋盘内部顺序搜索），每解完一个就向标准输出写一行 JSON，
+ * 顺序按完成先后，用 index（输入中的行号）对应回输入：
+ * <pre>
+ * {"index":3,"rows":4,"cols":4,"length":52,"moves":[14,10,...],"nodes":123456,"millis":87.512}
+ * {"index":4,"rows":3,"cols":3,"error":"unsolvable"}
+ * </pre>
+ * moves 是依次移入空格的方块位置（row * cols + col）。求解方式由 {@link SolverEngine#select} 按尺寸和 --timeout 选择，
+ * 超过 16 格的棋盘用随时可停的搜索，时限到时输出当时最好的解，并以 bound 给出它相对最优解的倍数上界；
+ * 超过 36 格的棋盘逐行逐列归约，解同样不是最优的，也带 bound。
+ * 读入线程最多领先输出 2 倍线程数个棋盘，下游读得慢时读入也随之放慢，内存占用不随输入大小增长。
+ */
+public final class BatchSolver {
+    private final int threads;
+    private final long timeoutMillis;
+    private final boolean useCache;
+    private final PrintStream out;
+    private final ThreadLocal<Map<Long, BoardSolver>> solvers = ThreadLocal.withInitial(HashMap::new);
+    private final AtomicInteger solved = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public BatchSolver(int threads, long timeoutMillis, boolean useCache, PrintStream out) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeoutMillis);
+        }
+        this.threads = threads;
+        this.timeoutMillis = timeoutMillis;
+        this.useCache = useCache;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws UnsupportedEncodingException {
+        System.setProperty("java.awt.headless", "true");
+        int threads = Runtime.getRuntime().availableProcessors();
+        long timeoutMillis = 0;
+        boolean useCache = false;
+        String input = "-";
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-t":
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--timeout":
+                        timeoutMillis = Long.parseLong(args[++i]);
+                        break;
+                    case "--cache":
+                        useCache = true;
+                        break;
+                    case "-h":
+                    case "--help":
+                        usage();
+                        return;
+                    default:
+                        input = args[i];
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            usage();
+            System.exit(2);
+        }
+
+        PrintStream out = new PrintStream(System.out, false, "UTF-8");
+        BatchSolver batch = new BatchSolver(threads, timeoutMillis, useCache, out);
+        try (InputStream in = "-".equals(input) ? System.in : new FileInputStream(input)) {
+            batch.run(in);
+        } catch (IOException e) {
+            System.err.println("Failed to read " + input + ": " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+        System.err.println("Solved " + batch.solved.get() + " boards, " + batch.failed.get() + " failed");
+    }
+
+    private static void usage() {
+        System.err.println("Usage: BatchSolver [-t threads] [--timeout millis] [--cache] [file|-]");
+    }
+
+    /**
+     * 读完输入并等所有棋盘输出后返回。
+     */
+    public void run(InputStream in) throws IOException, InterruptedException {
+        if (useCache) {
+            SolutionCache.getDefault().load();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "batch-solver-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        Semaphore inFlight = new Semaphore(threads * 2);
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            int index = 0;
+            while ((line = reader.readLine()) != null) {
+                index++;
+                String text = line.trim();
+                if (text.isEmpty() || text.startsWith("#")) {
+                    continue;
+                }
+                inFlight.acquire();
+                int lineNumber = index;
+                pool.execute(() -> {
+                    try {
+                        write(solve(lineNumber, text));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            out.flush();
+        }
+    }
+
+    private String solve(int index, String line) {
+        int[] size = new int[2];
+        int[] state;
+        try {
+            state = parse(line, size);
+        } catch (IllegalArgumentException e) {
+            failed.incrementAndGet();
+            return error(index, -1, -1, e.getMessage());
+        }
+        int rows = size[0];
+        int cols = size[1];
+        if (!PuzzleParity.isSolvable(rows, cols, state)) {
+            failed.incrementAndGet();
+            return error(index, rows, cols, "unsolvable");
+        }
+        BoardSolver solver = solvers.get().computeIfAbsent((long) rows << 32 | cols, key -> {
+            BoardSolver created = new BoardSolver(rows, cols);
+            created.setParallelism(1);
+            if (!useCache) {
+                created.setSolutionCache(null);
+            }
+            return created;
+        });
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        solver.setStopCondition(timeoutMillis > 0 ? () -> System.nanoTime() - deadline >= 0 : null);
+        SolverEngine engine = SolverEngine.select(rows, cols, timeoutMillis);
+        int blank = 0;
+        while (state[blank] != 0) {
+            blank++;
+        }
+        MoveSequence moves;
+        try {
+            if (engine == SolverEngine.HIERARCHICAL) {
+                // 几万步的解直接流进 2 位一步的序列，不经过 int[]
+                MoveSequence.Builder builder = new MoveSequence.Builder(rows, cols, blank, state.length * 4);
+                moves = solver.solveHierarchical(state, builder) < 0 ? null : builder.build();
+            } else {
+                int[] solution = solver.solve(state, engine, null);
+                moves = solution == null ? null : MoveSequence.of(rows, cols, blank, solution);
+            }
+        } catch (RuntimeException | OutOfMemoryError e) {
+            failed.incrementAndGet();
+            return error(index, rows, cols, String.valueOf(e));
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        if (moves == null) {
+            failed.incrementAndGet();
+            return error(index, rows, cols, timeoutMillis > 0 ? "timeout" : "no solution");
+        }
+        solved.incrementAndGet();
+        StringBuilder json = new StringBuilder(64 + moves.length() * 4);
+        json.append("{\"index\":").append(index)
+                .append(",\"rows\":").append(rows)
+                .append(",\"cols\":").append(cols)
+                .append(",\"length\":").append(moves.length())
+                .append(",\"moves\":[");
+        MoveSequence.Cursor cursor = moves.cursor();
+        while (cursor.hasNext()) {
+            if (cursor.index() > 0) {
+                json.append(',');
+            }
+            json.append(cursor.nextInt());
+        }
+        json.append(']');
+        if (engine == SolverEngine.ANYTIME || engine == SolverEngine.HIERARCHICAL) {
+            json.append(",\"bound\":").append(String.format(Locale.ROOT, "%.3f", solver.getSuboptimalityBound()));
+        }
+        json.append(",\"nodes\":").append(solver.getNodesExpanded())
+                .append(",\"millis\":").append(String.format(Locale.ROOT, "%.3f", elapsedNanos / 1e6))
+                .append('}');
+        return json.toString();
+    }
+
+    private void write(String json) {
+        synchronized (out) {
+            out.println(json);
+            out.flush();
+        }
+    }
+
+    /**
+     * 解析一行棋盘，尺寸写入 size[0]、size[1]。
+     */
+    static int[] parse(String line, int[] size) {
+        String[] fields = line.split("[\\s,]+");
+        int first = 0;
+        int rows = -1;
+        int cols = -1;
+        int separator = fields[0].indexOf('x');
+        if (separator > 0) {
+            rows = parseInt(fields[0].substring(0, separator));
+            cols = parseInt(fields[0].substring(separator + 1));
+            first = 1;
+        }
+        int cells = fields.length - first;
+        if (rows < 0) {
+            int side = (int) Math.round(Math.sqrt(cells));
+            if (side * side != cells) {
+                throw new IllegalArgumentException("Cannot infer board size from " + cells + " cells");
+            }
+            rows = side;
+            cols = side;
+        }
+        if (rows < 2 || cols < 2 || rows * cols != cells) {
+            throw new IllegalArgumentException("Expected " + rows + "x" + cols + " cells, got " + cells);
+        }
+        int[] state = new int[cells];
+        boolean[] seen = new boolean[cells];
+        for (int pos = 0; pos < cells; pos++) {
+            int tile = parseInt(fields[first + pos]);
+            if (tile < 0 || tile >= cells || seen[tile]) {
+                throw new IllegalArgumentException("Not a permutation of 0.." + (cells - 1) + ": " + tile);
+            }
+            seen[tile] = true;
+            state[pos] = tile;
+        }
+        size[0] = rows;
+        size[1] = cols;
+        return state;
+    }
+
+    private static int parseInt(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + text);
+        }
+    }
+
+    private static String error(int index, int rows, int cols, String message) {
+        StringBuilder json = new StringBuilder("{\"index\":").append(index);
+        if (rows > 0) {
+            json.append(",\"rows\":").append(rows).append(",\"cols\":").append(cols);
+        }
+        json.append(",\"error\":\"");
+        for (char c : message.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append("\"}").toString();
+    }
+}
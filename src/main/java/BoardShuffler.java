@@ -0,0 +1,108 @@
+import java.util.SplittableRandom;
+
+/**
+ * 生成打乱的棋盘，一趟 Fisher-Yates 洗牌加至多两次交换，O(n) 时间，不需要重试。
+ * 同一个种子总是得到同一个棋盘，可用于回放和测试。
+ * <p>
+ * 把空格看作编号 n 的方块，整个排列的奇偶性与空格离目标格的曼哈顿距离奇偶性相同时局面可解
+ * （每走一步两者同时翻转）。洗牌时每次真正的交换都翻转一次排列奇偶性，因此一趟下来就知道是否可解；
+ * 不可解时交换两个非空格方块即可翻转奇偶性。洗出来恰好是目标局面时，把空格与左边的方块对调，即走一步。
+ */
+public final class BoardShuffler {
+    private BoardShuffler() {
+    }
+
+    /**
+     * 华容道模式：返回 state[pos] = tile（方块编号为正确位置 + 1，0 为空格），保证可解且不是目标局面。
+     */
+    public static int[] shuffle(int rows, int cols, long seed) {
+        return shuffle(rows, cols, new SplittableRandom(seed));
+    }
+
+    public static int[] shuffle(int rows, int cols, SplittableRandom random) {
+        if (rows < 2 || cols < 2) {
+            throw new IllegalArgumentException("Board must be at least 2x2: " + rows + "x" + cols);
+        }
+        int size = rows * cols;
+        int[] state = goal(size);
+        boolean odd = shuffle(state, random);
+        int blank = indexOf(state, 0);
+        int distance = (rows - 1 - blank / cols) + (cols - 1 - blank % cols);
+        if (odd != ((distance & 1) == 1)) {
+            swap(state, blank == 0 ? 1 : 0, blank <= 1 ? 2 : 1);
+        }
+        if (isGoal(state)) {
+            swap(state, size - 1, size - 2);
+        }
+        return state;
+    }
+
+    /**
+     * 交换模式：返回 0..n-1 的一个排列，permutation[pos] 为该位置上方块的正确位置，保证不是恒等排列。
+     */
+    public static int[] shufflePermutation(int size, long seed) {
+        if (size < 2) {
+            throw new IllegalArgumentException("Need at least two pieces: " + size);
+        }
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+        shuffle(permutation, new SplittableRandom(seed));
+        boolean identity = true;
+        for (int i = 0; i < size && identity; i++) {
+            identity = permutation[i] == i;
+        }
+        if (identity) {
+            swap(permutation, 0, 1);
+        }
+        return permutation;
+    }
+
+    private static int[] goal(int size) {
+        int[] state = new int[size];
+        for (int pos = 0; pos < size - 1; pos++) {
+            state[pos] = pos + 1;
+        }
+        return state;
+    }
+
+    /**
+     * 原地 Fisher-Yates 洗牌，返回洗出的排列相对原排列是否为奇排列。
+     */
+    private static boolean shuffle(int[] values, SplittableRandom random) {
+        boolean odd = false;
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            if (j != i) {
+                swap(values, i, j);
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+
+    private static boolean isGoal(int[] state) {
+        for (int pos = 0; pos < state.length - 1; pos++) {
+            if (state[pos] != pos + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,401 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 不依赖界面的求解核心：输入 state[pos] = tile（方块编号为正确位置 + 1，0 为空格），
+ * 输出依次移入空格的方块位置（row * cols + col）。负责按尺寸挑选搜索方式、查询和写入解缓存以及记录统计。
+ * {@link PuzzleSolver} 在它外面包一层拼图块与坐标的转换，批量求解直接使用它，整个过程不加载 AWT。
+ * 一个实例同一时刻只能求解一个局面。
+ */
+public class BoardSolver {
+    private final int rows;
+    private final int cols;
+    private Heuristic heuristic;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private MovePruner movePruner = MovePruner.reverseOnly();
+    private long transpositionTableBytes;
+    private SolutionCache cache = SolutionCache.getDefault();
+    private SolverMetrics metrics = SolverMetrics.getInstance();
+    private BooleanSupplier stopCondition = () -> false;
+    private SolveProgressListener progressListener;
+    private long nodesExpanded;
+    private long elapsedNanos;
+    private int iterations;
+    private long tableProbes;
+    private long tableHits;
+    private long tableCutoffs;
+    private double suboptimalityBound = 1.0;
+    private HierarchicalSolver hierarchicalSolver;
+
+    public BoardSolver(int rows, int cols) {
+        if (rows < 2 || cols < 2) {
+            throw new IllegalArgumentException("Board must be at least 2x2: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * 求出最优解，无解、被停止或找不到解时返回 null。3x3 且未指定估值时查表，否则用 IDA*。
+     * 只接受不超过 16 格的棋盘，更大的棋盘最优解可能永远等不到，
+     * 应当用 {@link #solve(int[], SolverEngine, ObjDoubleConsumer)} 配合 {@link #selectEngine} 按预算求解。
+     */
+    public int[] solve(int[] state) {
+        SolverEngine engine = selectEngine(0);
+        if (engine != SolverEngine.TABLE && engine != SolverEngine.OPTIMAL) {
+            throw new IllegalArgumentException("Optimal solving is limited to 16 cells, got " + rows + "x" + cols
+                    + "; select an engine by budget instead");
+        }
+        return solve(state, engine, null);
+    }
+
+    /**
+     * 按尺寸和预算选择求解方式，见 {@link SolverEngine#select}；3x3 指定了估值时用该估值搜索，不查表。
+     *
+     * @param budgetMillis 求解的时间预算，0 表示不限时
+     */
+    public SolverEngine selectEngine(long budgetMillis) {
+        SolverEngine engine = SolverEngine.select(rows, cols, budgetMillis);
+        return engine == SolverEngine.TABLE && heuristic != null ? SolverEngine.OPTIMAL : engine;
+    }
+
+    /**
+     * 用指定的方式求解，通常由 {@link SolverEngine#select} 按尺寸和预算选出。
+     * listener 在每次得到（更短的）解时以该解和它相对最优解的倍数上界调用，最优解只调用一次，上界为 1.0；可以为 null。
+     * 返回最终的解，无解、被停止或找不到解时返回 null。
+     */
+    public int[] solve(int[] state, SolverEngine engine, ObjDoubleConsumer<int[]> listener) {
+        if (engine == SolverEngine.ANYTIME) {
+            return solveAnytime(state, listener);
+        }
+        if (engine == SolverEngine.HIERARCHICAL) {
+            int[] moves = solveHierarchical(state);
+            if (moves != null && listener != null) {
+                listener.accept(moves.clone(), suboptimalityBound);
+            }
+            return moves;
+        }
+        checkState(state);
+        if (!PuzzleParity.isSolvable(rows, cols, state)) {
+            return null;
+        }
+        int[] moves = engine == SolverEngine.TABLE ? solveByTable(state) : solveOptimal(state);
+        if (moves != null && listener != null) {
+            listener.accept(moves.clone(), 1.0);
+        }
+        return moves;
+    }
+
+    private int[] solveByTable(int[] state) {
+        if (rows != 3 || cols != 3) {
+            throw new IllegalArgumentException("Table lookup only supports 3x3 boards: " + rows + "x" + cols);
+        }
+        long start = System.nanoTime();
+        int[] moves = EightPuzzleTable.getInstance().solve(state);
+        resetStatistics();
+        elapsedNanos = System.nanoTime() - start;
+        record(moves, false);
+        return moves;
+    }
+
+    private int[] solveOptimal(int[] state) {
+        int[] cached = lookup(state);
+        if (cached != null) {
+            return cached;
+        }
+
+        // 未指定估值时按尺寸选择，模式数据库只在真正求解时才从磁盘映射
+        if (heuristic == null) {
+            heuristic = Heuristic.forBoard(rows, cols);
+        }
+        resetStatistics();
+        int[] moves;
+        if (parallelism > 1 && rows * cols > 9) {
+            ParallelIdaStarSearch search = new ParallelIdaStarSearch(rows, cols, heuristic, parallelism);
+            search.setMovePruner(movePruner);
+            search.setTranspositionTableBytes(transpositionTableBytes);
+            search.setStopCondition(stopCondition);
+            search.setProgressListener(progressListener);
+            try {
+                moves = search.solve(state);
+            } finally {
+                search.shutdown();
+            }
+            nodesExpanded = search.getNodesExpanded();
+            iterations = search.getIterations();
+            elapsedNanos = search.getElapsedNanos();
+            recordTableStatistics(search.getTranspositionTables());
+        } else {
+            IdaStarSearch search = new IdaStarSearch(rows, cols, heuristic);
+            search.setMovePruner(movePruner);
+            if (transpositionTableBytes > 0) {
+                search.setTranspositionTable(new TranspositionTable(transpositionTableBytes));
+            }
+            search.setStopCondition(stopCondition);
+            search.setProgressListener(progressListener);
+            moves = search.solve(state);
+            nodesExpanded = search.getNodesExpanded();
+            iterations = search.getIterations();
+            elapsedNanos = search.getElapsedNanos();
+            TranspositionTable table = search.getTranspositionTable();
+            recordTableStatistics(table == null ? Collections.emptyList() : Collections.singletonList(table));
+        }
+        record(moves, false);
+        if (moves != null && cache != null) {
+            cache.put(rows, cols, state, moves);
+        }
+        return moves;
+    }
+
+    /**
+     * 随时可停的求解，见 {@link AnytimeIdaStarSearch}：每找到更短的解就以该解和它相对最优解的倍数上界调用 listener，
+     * 停止条件成立或证明最优时返回当时最好的解，无解或一个解都没找到时返回 null。
+     * 模式数据库还没构建时不等它，先用较弱的估值给出结果。
+     */
+    public int[] solveAnytime(int[] state, ObjDoubleConsumer<int[]> listener) {
+        checkState(state);
+        if (!PuzzleParity.isSolvable(rows, cols, state)) {
+            return null;
+        }
+        int[] cached = lookup(state);
+        if (cached != null) {
+            if (listener != null) {
+                listener.accept(cached.clone(), 1.0);
+            }
+            return cached;
+        }
+        long start = System.nanoTime();
+        Heuristic estimate = heuristic != null ? heuristic : Heuristic.availableForBoard(rows, cols);
+        AnytimeIdaStarSearch search = new AnytimeIdaStarSearch(rows, cols, estimate);
+        search.setStopCondition(stopCondition);
+        ObjIntConsumer<int[]> improvements = (improved, lowerBound) -> {
+            if (listener != null) {
+                listener.accept(improved, lowerBound == 0 ? 1.0 : (double) improved.length / lowerBound);
+            }
+        };
+        int[] moves = search.solve(state, improvements);
+        resetStatistics();
+        nodesExpanded = search.getNodesExpanded();
+        iterations = search.getIterations();
+        elapsedNanos = System.nanoTime() - start;
+        suboptimalityBound = search.getSuboptimalityBound();
+        if (moves != null && suboptimalityBound == 1.0 && cache != null) {
+            cache.put(rows, cols, state, moves);
+        }
+        record(moves, false);
+        return moves;
+    }
+
+    private int[] solveHierarchical(int[] state) {
+        checkState(state);
+        long start = System.nanoTime();
+        int[] moves = hierarchicalSolver().solve(state);
+        recordHierarchical(state, moves == null ? -1 : moves.length, start);
+        return moves;
+    }
+
+    /**
+     * 逐行逐列归约求解，见 {@link HierarchicalSolver}：每算出一步就交给 sink，不必等整条解算完。
+     * 返回总步数，不可解时返回 -1。解不是最优的，也不写入解缓存；
+     * {@link #getSuboptimalityBound} 给出解长相对曼哈顿距离下界的倍数。
+     */
+    public int solveHierarchical(int[] state, IntConsumer sink) {
+        checkState(state);
+        long start = System.nanoTime();
+        int length = hierarchicalSolver().solve(state, sink);
+        recordHierarchical(state, length, start);
+        return length;
+    }
+
+    private HierarchicalSolver hierarchicalSolver() {
+        if (hierarchicalSolver == null) {
+            hierarchicalSolver = new HierarchicalSolver(rows, cols);
+        }
+        return hierarchicalSolver;
+    }
+
+    private void recordHierarchical(int[] state, int length, long start) {
+        resetStatistics();
+        elapsedNanos = System.nanoTime() - start;
+        if (length >= 0) {
+            int lowerBound = manhattanDistance(state);
+            suboptimalityBound = lowerBound == 0 ? 1.0 : (double) length / lowerBound;
+        }
+        record(length, false);
+    }
+
+    private int manhattanDistance(int[] state) {
+        int distance = 0;
+        for (int pos = 0; pos < state.length; pos++) {
+            if (state[pos] != 0) {
+                int goal = state[pos] - 1;
+                distance += Math.abs(goal / cols - pos / cols) + Math.abs(goal % cols - pos % cols);
+            }
+        }
+        return distance;
+    }
+
+    private int[] lookup(int[] state) {
+        long start = System.nanoTime();
+        int[] cached = cache == null ? null : cache.lookup(rows, cols, state);
+        if (cached != null) {
+            resetStatistics();
+            elapsedNanos = System.nanoTime() - start;
+            record(cached, true);
+        }
+        return cached;
+    }
+
+    private void checkState(int[] state) {
+        if (state.length != rows * cols) {
+            throw new IllegalArgumentException("Expected " + rows * cols + " cells, got " + state.length);
+        }
+    }
+
+    private void resetStatistics() {
+        nodesExpanded = 0;
+        iterations = 0;
+        elapsedNanos = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        tableCutoffs = 0;
+        suboptimalityBound = 1.0;
+    }
+
+    /**
+     * 把本次求解的统计交给 {@link SolverMetrics}，每次求解只汇总一次。
+     */
+    private void record(int[] moves, boolean cacheHit) {
+        record(moves == null ? -1 : moves.length, cacheHit);
+    }
+
+    private void record(int solutionLength, boolean cacheHit) {
+        if (metrics != null) {
+            metrics.record(new SolveStats(rows, cols, solutionLength, nodesExpanded,
+                    nodesExpanded, iterations, elapsedNanos, cacheHit));
+        }
+    }
+
+    private void recordTableStatistics(List<TranspositionTable> tables) {
+        for (TranspositionTable table : tables) {
+            tableProbes += table.getProbes();
+            tableHits += table.getHits();
+            tableCutoffs += table.getCutoffs();
+        }
+        if (metrics != null && tableProbes > 0) {
+            metrics.recordTable(tableProbes, tableHits);
+        }
+    }
+
+    /**
+     * 指定估值函数，例如 {@link LinearConflictHeuristic} 或 {@link WalkingDistanceHeuristic}。
+     * 估值函数不保存可变状态，可以在多个求解器之间共用。
+     */
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * 并行搜索使用的线程数，默认为处理器核数；设为 1 时始终顺序搜索。3x3 棋盘总是顺序搜索。
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 走子剪枝的状态机，默认 {@link MovePruner#reverseOnly()}，可换成 {@link MovePruner#duplicates(int)}。
+     */
+    public void setMovePruner(MovePruner movePruner) {
+        this.movePruner = movePruner == null ? MovePruner.reverseOnly() : movePruner;
+    }
+
+    /**
+     * 求解前先查、求出最优解后写入的缓存，默认是 {@link SolutionCache#getDefault()}，传 null 关闭。
+     */
+    public void setSolutionCache(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * 求解统计的去处，默认是进程内共用的 {@link SolverMetrics#getInstance()}，传 null 不记录。
+     */
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 置换表的内存上限（字节），并行搜索时平均分给各线程。默认 0，不使用置换表。
+     */
+    public void setTranspositionTableBytes(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Table size must not be negative: " + bytes);
+        }
+        this.transpositionTableBytes = bytes;
+    }
+
+    /**
+     * 搜索每隔若干节点检查一次，成立时尽快返回（{@link #solve} 返回 null，{@link #solveAnytime} 返回当时最好的解）。
+     */
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition == null ? () -> false : stopCondition;
+    }
+
+    public void setProgressListener(SolveProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * 最近一次搜索运行的阈值轮数，查表或命中缓存时为 0。
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodesExpanded * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * 最近一次搜索中置换表命中的比例，没有使用置换表时为 0。
+     */
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    /**
+     * 最近一次搜索中因置换表命中而剪掉的子树数。
+     */
+    public long getTableCutoffs() {
+        return tableCutoffs;
+    }
+
+    /**
+     * 最近一次 {@link #solveAnytime} 或逐行归约所得解相对最优解的倍数上界，最优求解总是 1.0。
+     */
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * 已知最优解的棋盘，由 {@link PuzzlePool} 在后台生成。
+ */
+public final class CalibratedBoard {
+    private final int rows;
+    private final int cols;
+    private final int[] state;
+    private final int[] solution;
+
+    public CalibratedBoard(int rows, int cols, int[] state, int[] solution) {
+        this.rows = rows;
+        this.cols = cols;
+        this.state = state.clone();
+        this.solution = solution.clone();
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * state[pos] = tile，方块编号为正确位置 + 1，0 为空格。
+     */
+    public int[] getState() {
+        return state.clone();
+    }
+
+    /**
+     * 一条最优解，依次移入空格的方块位置（row * cols + col）。
+     */
+    public int[] getSolution() {
+        return solution.clone();
+    }
+
+    public int getOptimalLength() {
+        return solution.length;
+    }
+
+    public DifficultyBand getBand() {
+        return DifficultyBand.of(rows, cols, solution.length);
+    }
+}
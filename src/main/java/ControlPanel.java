@@ -20,6 +20,7 @@ public class ControlPanel extends JPanel {
     private final JButton changeDifficultyButton;
     private final JButton challengeButton;
     private final JButton solveButton;
+    private final JButton hintButton;
     private final JButton resetButton;
     private final JButton chooseImageButton;
     private final JLabel timerLabel;
@@ -55,7 +56,7 @@ public class ControlPanel extends JPanel {
         topPanel.add(toggleGameModeButton);
 
         // 创建中央按钮面板
-        JPanel buttonPanel = new JPanel(new GridLayout(3, 2, 10, 10));
+        JPanel buttonPanel = new JPanel(new GridLayout(4, 2, 10, 10));
         buttonPanel.setOpaque(false);
 
         randomizeButton = createStyledButton("随机打乱", new Color(52, 152, 219));
@@ -64,6 +65,7 @@ public class ControlPanel extends JPanel {
         solveButton = createStyledButton("一键解题", new Color(155, 89, 182));
         resetButton = createStyledButton("重新开始", new Color(231, 76, 60));
         chooseImageButton = createStyledButton("选择图片", new Color(52, 73, 94));
+        hintButton = createStyledButton("提示", new Color(241, 196, 15));
 
         buttonPanel.add(randomizeButton);
         buttonPanel.add(changeDifficultyButton);
@@ -71,6 +73,7 @@ public class ControlPanel extends JPanel {
         buttonPanel.add(solveButton);
         buttonPanel.add(resetButton);
         buttonPanel.add(chooseImageButton);
+        buttonPanel.add(hintButton);
 
         // 创建底部面板，包含计时器
         timerLabel = new JLabel("时间: 0", JLabel.CENTER);
@@ -111,35 +114,37 @@ public class ControlPanel extends JPanel {
         randomizeButton.addActionListener(e -> game.randomizePuzzle());
         resetButton.addActionListener(e -> game.resetGame());
         changeDifficultyButton.addActionListener(e -> {
-            String[] options = {"简单 (3x3)", "中等 (4x4)", "困难 (5x5)"};
+            String[] options = {"简单 (3x3)", "中等 (4x4)", "困难 (5x5)", "超大 (10x10)", "巨型 (30x30)"};
             int choice = JOptionPane.showOptionDialog(this, "选择难度", "难度设置",
                     JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
             switch (choice) {
                 case 0: 
                     game.setDifficulty(3, 3); 
-                    solveButton.setEnabled(true);
                     break;
                 case 1: 
                     game.setDifficulty(4, 4); 
-                    solveButton.setEnabled(false);
                     break;
                 case 2: 
                     game.setDifficulty(5, 5); 
-                    solveButton.setEnabled(false);
+                    break;
+                case 3:
+                    game.setDifficulty(10, 10);
+                    break;
+                case 4:
+                    game.setDifficulty(30, 30);
                     break;
             }
         });
         challengeButton.addActionListener(e -> startChallengeMode());
         solveButton.addActionListener(e -> game.solvePuzzle());
+        hintButton.addActionListener(e -> game.showHint());
         chooseImageButton.addActionListener(e -> game.loadNewImage());
         toggleGameModeButton.addItemListener(e -> {
             boolean isStandardMode = e.getStateChange() == ItemEvent.SELECTED;
             game.setStandardMode(isStandardMode);
             if (isStandardMode) {
-                solveButton.setEnabled(false);
                 toggleDragModeButton.setEnabled(true);  // 在标准模式下启用拖动模式切换
             } else {
-                solveButton.setEnabled(game.getRows() == 3 && game.getCols() == 3);
                 toggleDragModeButton.setEnabled(false);  // 在华容道模式下禁用拖动模式切换
                 toggleDragModeButton.setSelected(false);  // 确保拖动模式被关闭
                 game.getGamePanel().setDraggingMode(false);  // 确保游戏面板的拖动模式被关闭
@@ -164,20 +169,22 @@ public class ControlPanel extends JPanel {
     }
 
     public void startChallengeMode() {
-        String[] options = {"1分钟", "3分钟", "5分钟"};
+        String[] options = {"1分钟 (简单)", "3分钟 (中等)", "5分钟 (困难)"};
         int choice = JOptionPane.showOptionDialog(this, "选择挑战时间", "挑战模式",
                 JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
         
+        DifficultyBand band;
         switch (choice) {
-            case 0: remainingSeconds = 60; break;
-            case 1: remainingSeconds = 180; break;
-            case 2: remainingSeconds = 300; break;
+            case 0: remainingSeconds = 60; band = DifficultyBand.EASY; break;
+            case 1: remainingSeconds = 180; band = DifficultyBand.MEDIUM; break;
+            case 2: remainingSeconds = 300; band = DifficultyBand.HARD; break;
             default: return; // 如��用户取消，则不开始挑战模式
         }
         challengeDuration = remainingSeconds;
 
         timerLabel.setText("剩余时间: " + formatTime(remainingSeconds));
-        game.randomizePuzzle();
+        // 华容道模式下按难度档发一个最优步数已知的局面，同一挑战时长的难度不再随运气起伏
+        game.dealPuzzle(band);
         if (challengeTimer != null) {
             challengeTimer.stop();
         }
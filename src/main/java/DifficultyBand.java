@@ -0,0 +1,87 @@
+/**
+ * 同一尺寸内按最优解步数划分的难度档，以该尺寸最难局面的最优步数（上帝之数）为基准按比例划分。
+ * 只有上帝之数已知的尺寸（转置相同）才能划分，目前是 2x2、2x3、2x4、3x3、3x4 和 4x4。
+ */
+public enum DifficultyBand {
+    EASY(0.2, 0.4),
+    MEDIUM(0.4, 0.65),
+    HARD(0.65, 1.0);
+
+    private final double from;
+    private final double to;
+
+    DifficultyBand(double from, double to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * 该尺寸的上帝之数，未知时返回 -1。
+     */
+    static int maxOptimalLength(int rows, int cols) {
+        int small = Math.min(rows, cols);
+        int large = Math.max(rows, cols);
+        if (small == 2 && large == 2) {
+            return 6;
+        }
+        if (small == 2 && large == 3) {
+            return 21;
+        }
+        if (small == 2 && large == 4) {
+            return 36;
+        }
+        if (small == 3 && large == 3) {
+            return 31;
+        }
+        if (small == 3 && large == 4) {
+            return 53;
+        }
+        if (small == 4 && large == 4) {
+            return 80;
+        }
+        return -1;
+    }
+
+    static boolean isCalibrated(int rows, int cols) {
+        return maxOptimalLength(rows, cols) > 0;
+    }
+
+    /**
+     * 该档最优步数的下限（含）。
+     */
+    public int minLength(int rows, int cols) {
+        return (int) Math.ceil(from * requireCalibrated(rows, cols));
+    }
+
+    /**
+     * 该档最优步数的上限（含），最难一档就是上帝之数。
+     */
+    public int maxLength(int rows, int cols) {
+        int max = requireCalibrated(rows, cols);
+        return this == HARD ? max : (int) Math.ceil(to * max) - 1;
+    }
+
+    public boolean contains(int rows, int cols, int length) {
+        return length >= minLength(rows, cols) && length <= maxLength(rows, cols);
+    }
+
+    /**
+     * 最优步数所在的档，低于最简单一档时返回 null。
+     */
+    public static DifficultyBand of(int rows, int cols, int length) {
+        for (DifficultyBand band : values()) {
+            if (band.contains(rows, cols, length)) {
+                return band;
+            }
+        }
+        return null;
+    }
+
+    private static int requireCalibrated(int rows, int cols) {
+        int max = maxOptimalLength(rows, cols);
+        if (max < 0) {
+            throw new IllegalArgumentException("No difficulty bands for " + rows + "x" + cols);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.Arrays;
+
+/**
+ * 3x3 拼图全部 181440 个可达状态到目标的距离表。
+ * 下标由空格位置和其余 8 个方块排列的 Lehmer 编码组成：可达状态的方块排列都是偶排列，
+ * 编码除以 2 即为完美哈希。每个状态只存距离对 16 取模的 4 位值，整张表约 90 KB。
+ * 相邻状态的距离恰好相差 1，所以每一步只要走向取值为 (d - 1) mod 16 的邻居即可得到最优解，无需搜索。
+ */
+public class EightPuzzleTable {
+    private static final int SIZE = 9;
+    private static final int TILE_PERMUTATIONS = 40320 / 2;
+    private static final int STATES = SIZE * TILE_PERMUTATIONS;
+    private static final int[] FACTORIALS = {5040, 720, 120, 24, 6, 2, 1, 1};
+    private static final int[][] NEIGHBORS = {
+            {1, 3}, {0, 2, 4}, {1, 5},
+            {0, 4, 6}, {1, 3, 5, 7}, {2, 4, 8},
+            {3, 7}, {4, 6, 8}, {5, 7}
+    };
+
+    private static EightPuzzleTable instance;
+
+    private final byte[] table = new byte[STATES / 2];
+
+    private EightPuzzleTable() {
+        build();
+    }
+
+    /**
+     * 返回距离表，第一次调用时构建（冷启动约 0.3 秒）。
+     */
+    public static synchronized EightPuzzleTable getInstance() {
+        if (instance == null) {
+            instance = new EightPuzzleTable();
+        }
+        return instance;
+    }
+
+    /**
+     * 在低优先级的后台线程中提前构建距离表。
+     */
+    public static void prefetch() {
+        Thread thread = new Thread(EightPuzzleTable::getInstance, "eight-puzzle-table");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * 返回依次移入空格的方块位置；不可解的局面返回 null。
+     */
+    public int[] solve(int[] state) {
+        int[] board = state.clone();
+        int index = index(board);
+        if (index < 0) {
+            return null;
+        }
+        int blank = indexOf(board, 0);
+        int[] moves = new int[32];
+        int length = 0;
+        int current = get(index);
+        while (!isGoal(board)) {
+            int wanted = (current - 1) & 0xF;
+            for (int next : NEIGHBORS[blank]) {
+                board[blank] = board[next];
+                board[next] = 0;
+                int nextIndex = index(board);
+                if (get(nextIndex) == wanted) {
+                    moves[length++] = next;
+                    blank = next;
+                    current = wanted;
+                    break;
+                }
+                board[next] = board[blank];
+                board[blank] = 0;
+            }
+        }
+        return Arrays.copyOf(moves, length);
+    }
+
+    /**
+     * 最优解的第一步（移入空格的方块位置）；已还原或不可解时返回 -1。
+     * 只在 state 上原地试走再撤销，不分配内存。
+     */
+    public int nextMove(int[] state) {
+        int index = index(state);
+        if (index < 0 || isGoal(state)) {
+            return -1;
+        }
+        int blank = indexOf(state, 0);
+        int wanted = (get(index) - 1) & 0xF;
+        for (int next : NEIGHBORS[blank]) {
+            state[blank] = state[next];
+            state[next] = 0;
+            int nextIndex = index(state);
+            state[next] = state[blank];
+            state[blank] = 0;
+            if (get(nextIndex) == wanted) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 最优步数；不可解的局面返回 -1。
+     */
+    public int distance(int[] state) {
+        int[] moves = solve(state);
+        return moves == null ? -1 : moves.length;
+    }
+
+    private void build() {
+        boolean[] visited = new boolean[STATES];
+        long[] queue = new long[STATES];
+        int[] board = new int[SIZE];
+        for (int i = 0; i < SIZE - 1; i++) {
+            board[i] = i + 1;
+        }
+        queue[0] = IdaStarSearch.pack(board);
+        visited[index(board)] = true;
+        int head = 0;
+        int tail = 1;
+        int[] depths = new int[STATES];
+        while (head < tail) {
+            long packed = queue[head];
+            int depth = depths[head++];
+            int blank = 0;
+            for (int pos = 0; pos < SIZE; pos++) {
+                board[pos] = IdaStarSearch.tileAt(packed, pos);
+                if (board[pos] == 0) {
+                    blank = pos;
+                }
+            }
+            set(index(board), depth & 0xF);
+            for (int next : NEIGHBORS[blank]) {
+                board[blank] = board[next];
+                board[next] = 0;
+                int nextIndex = index(board);
+                if (!visited[nextIndex]) {
+                    visited[nextIndex] = true;
+                    depths[tail] = depth + 1;
+                    queue[tail++] = IdaStarSearch.pack(board);
+                }
+                board[next] = board[blank];
+                board[blank] = 0;
+            }
+        }
+    }
+
+    /**
+     * 空格位置 * 20160 + 方块排列的 Lehmer 编码 / 2；奇排列（不可达）返回 -1。
+     */
+    private static int index(int[] board) {
+        int blank = 0;
+        int rank = 0;
+        int inversions = 0;
+        int digit = 0;
+        for (int i = 0; i < SIZE; i++) {
+            int tile = board[i];
+            if (tile == 0) {
+                blank = i;
+                continue;
+            }
+            int smaller = 0;
+            for (int j = i + 1; j < SIZE; j++) {
+                if (board[j] != 0 && board[j] < tile) {
+                    smaller++;
+                }
+            }
+            rank += smaller * FACTORIALS[digit++];
+            inversions += smaller;
+        }
+        if ((inversions & 1) != 0) {
+            return -1;
+        }
+        return blank * TILE_PERMUTATIONS + (rank >>> 1);
+    }
+
+    private int get(int index) {
+        return (table[index >>> 1] >>> ((index & 1) << 2)) & 0xF;
+    }
+
+    private void set(int index, int value) {
+        int shift = (index & 1) << 2;
+        table[index >>> 1] = (byte) ((table[index >>> 1] & ~(0xF << shift)) | (value << shift));
+    }
+
+    private static boolean isGoal(int[] board) {
+        for (int i = 0; i < SIZE - 1; i++) {
+            if (board[i] != i + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(int[] board, int tile) {
+        for (int pos = 0; pos < SIZE; pos++) {
+            if (board[pos] == tile) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+}
@@ -9,8 +9,11 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
 
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
@@ -45,6 +48,27 @@ public class GamePanel extends JPanel implements MouseListener, MouseMotionListe
     private Timer glowTimer;
     private float glowAlpha = 0f;
     private static final float GLOW_SPEED = 0.1f;
+    private static final long SOLVE_TIMEOUT_MILLIS = 30_000;
+    private static final long ANYTIME_BUDGET_MILLIS = 10_000;
+    /** 逐行归约的解每拍走 格数 / 24 步，30x30 约半分钟播完 */
+    private static final int CELLS_PER_STREAMED_MOVE = 24;
+    private static final int STREAM_DELAY = 15;
+    private CompletableFuture<?> pendingSolve;
+    private PuzzleSolver anytimeSolver;
+    private Timer solutionTimer;
+    private MoveSequence playingMoves;
+    private MoveSequence.Cursor playingCursor;
+    /** 随时可停求解开始以来实际播放过的走法，一来一回的两步互相抵消，始终是从求解开始时的局面出发的净路径 */
+    private MoveSequence.Builder playedSinceSolve;
+    /** 按位置索引的拼图块，播放长解时不必每步扫描列表；发现过期时整体重建 */
+    private PuzzlePiece[] pieceGrid;
+    /** 提示在 EDT 上计算，时限控制在一帧以内 */
+    private static final long HINT_BUDGET_NANOS = 12_000_000L;
+    private static final int HINT_DISPLAY_MILLIS = 1500;
+    private HintEngine hintEngine;
+    private PuzzlePiece hintPiece;
+    private Timer hintTimer;
+    private long shuffleSeed;
 
     public GamePanel(PuzzleGame game, BufferedImage image, int rows, int cols) {
         this.game = game;
@@ -63,7 +87,16 @@ public class GamePanel extends JPanel implements MouseListener, MouseMotionListe
     }
 
     private void initializePuzzle() {
+        cancelPendingSolve();
+        clearHint();
+        if (hintEngine == null || hintEngine.getRows() != rows || hintEngine.getCols() != cols) {
+            hintEngine = new HintEngine(rows, cols);
+        }
+        if (!isStandardMode) {
+            PuzzlePool.getDefault().prefetch(rows, cols);
+        }
         puzzlePieces = new ArrayList<>();
+        pieceGrid = null;
         pieceWidth = PuzzleGame.PUZZLE_WIDTH / cols;
         pieceHeight = PuzzleGame.PUZZLE_HEIGHT / rows;
 
@@ -89,46 +122,69 @@ public class GamePanel extends JPanel implements MouseListener, MouseMotionListe
     }
 
     public void randomizePuzzle() {
-        do {
-            Collections.shuffle(puzzlePieces);
-            for (int i = 0; i < puzzlePieces.size(); i++) {
-                PuzzlePiece piece = puzzlePieces.get(i);
-                piece.setCurrentPosition(i / cols, i % cols);
-                if (piece == emptyPiece) {
-                    emptyPiece = piece;
-                }
-            }
-        } while (!isSolvable() || isPuzzleSolved());
-        repaint();
+        randomizePuzzle(ThreadLocalRandom.current().nextLong());
     }
 
-    private boolean isSolvable() {
-        int inversions = 0;
-        int emptyRow = 0;
-        List<Integer> flatPuzzle = new ArrayList<>();
+    /**
+     * 按种子打乱，同一种子、同一尺寸和模式总是得到同一个局面，见 {@link BoardShuffler}。
+     */
+    public void randomizePuzzle(long seed) {
+        cancelPendingSolve();
+        shuffleSeed = seed;
+        if (emptyPiece == null) {
+            layOut(BoardShuffler.shufflePermutation(puzzlePieces.size(), seed));
+        } else {
+            layOutState(BoardShuffler.shuffle(rows, cols, seed));
+        }
+    }
 
-        for (int i = 0; i < puzzlePieces.size(); i++) {
-            PuzzlePiece piece = puzzlePieces.get(i);
-            if (piece == emptyPiece) {
-                emptyRow = piece.getRow();
-            } else {
-                flatPuzzle.add(piece.getCorrectRow() * cols + piece.getCorrectCol());
-            }
+    /**
+     * 华容道模式下从 {@link PuzzlePool} 取一个最优解步数落在 band 内的局面，取用本身不做任何搜索。
+     * 交换模式、没有划分难度的尺寸或池暂时取空时退回到随机打乱。
+     */
+    public void dealPuzzle(DifficultyBand band) {
+        CalibratedBoard board = emptyPiece == null ? null : PuzzlePool.getDefault().take(rows, cols, band);
+        if (board == null) {
+            randomizePuzzle();
+            return;
         }
+        cancelPendingSolve();
+        layOutState(board.getState());
+    }
 
-        for (int i = 0; i < flatPuzzle.size() - 1; i++) {
-            for (int j = i + 1; j < flatPuzzle.size(); j++) {
-                if (flatPuzzle.get(i) > flatPuzzle.get(j)) {
-                    inversions++;
-                }
-            }
+    /**
+     * 按 state[pos] = tile（方块编号为正确位置 + 1，0 为空格）摆放。
+     */
+    private void layOutState(int[] state) {
+        int[] layout = new int[state.length];
+        for (int pos = 0; pos < state.length; pos++) {
+            layout[pos] = state[pos] == 0 ? state.length - 1 : state[pos] - 1;
         }
+        layOut(layout);
+    }
 
-        if (cols % 2 == 1) {
-            return inversions % 2 == 0;
-        } else {
-            return ((rows - emptyRow) % 2 == 1) == (inversions % 2 == 0);
+    /**
+     * 把正确位置为 layout[pos] 的拼图块摆到 pos，拼图块列表也按当前位置重新排序。
+     */
+    private void layOut(int[] layout) {
+        PuzzlePiece[] byCorrect = new PuzzlePiece[puzzlePieces.size()];
+        for (PuzzlePiece piece : puzzlePieces) {
+            byCorrect[piece.getCorrectRow() * cols + piece.getCorrectCol()] = piece;
         }
+        for (int pos = 0; pos < layout.length; pos++) {
+            PuzzlePiece piece = byCorrect[layout[pos]];
+            piece.setCurrentPosition(pos / cols, pos % cols);
+            puzzlePieces.set(pos, piece);
+        }
+        hintEngine.forget();
+        repaint();
+    }
+
+    /**
+     * 最近一次随机打乱的种子，传给 {@link #randomizePuzzle(long)} 可以重现同一局面。
+     */
+    public long getShuffleSeed() {
+        return shuffleSeed;
     }
 
     private void handleMousePress(Point p) {
@@ -138,6 +194,7 @@ public class GamePanel extends JPanel implements MouseListener, MouseMotionListe
                     draggedPiece = piece;
                     dragOffset = new Point(p.x - piece.getX(), p.y - piece.getY());
                 } else if (piece != emptyPiece && isAdjacentToEmpty(piece)) {
+                    clearHint();
                     swapWithEmpty(piece);
                     repaint();
                     if (isPuzzleSolved()) {
@@ -194,7 +251,12 @@ public class GamePanel extends JPanel implements MouseListener, MouseMotionListe
         int tempCol = movingPiece.getCol();
         movingPiece.setCurrentPosition(emptyPiece.getRow(), emptyPiece.getCol());
         emptyPiece.setCurrentPosition(tempRow, tempCol);
+        if (pieceGrid != null) {
+            pieceGrid[movingPiece.getRow() * cols + movingPiece.getCol()] = movingPiece;
+            pieceGrid[tempRow * cols + tempCol] = emptyPiece;
+        }
         movingPiece = null;
+        hintEngine.recordMove();
         
         if (isPuzzleSolved()) {
             game.puzzleSolved();
@@ -202,20 +264,218 @@ public class GamePanel extends JPanel implements MouseListener, MouseMotionListe
     }
 
     public void solvePuzzle() {
-        if (rows != 3 || cols != 3) {
-            JOptionPane.showMessageDialog(this, "自动解题功能仅支持3x3难度", "无法解题", JOptionPane.WARNING_MESSAGE);
+        if (isStandardMode) {
+            // 交换模式的最优解是线性时间算出来的，不需要后台线程
+            cancelPendingSolve();
+            selectedPiece = null;
+            stopGlowEffect();
+            List<Point> swaps = new SwapSolver(puzzlePieces, rows, cols).solve();
+            System.out.println("Swap solution found with " + swaps.size() / 2 + " swaps.");
+            animateSwaps(swaps);
+            return;
+        }
+        // 再次点击时取消正在进行的求解
+        if (pendingSolve != null && !pendingSolve.isDone()) {
+            pendingSolve.cancel(true);
             return;
         }
 
         PuzzleSolver solver = new PuzzleSolver(puzzlePieces, rows, cols);
-        List<Point> solution = solver.solve();
+        SolverEngine engine = SolverEngine.select(rows, cols, SOLVE_TIMEOUT_MILLIS);
+        if (engine == SolverEngine.HIERARCHICAL) {
+            solveStreaming(solver);
+            return;
+        }
+        if (engine == SolverEngine.ANYTIME) {
+            solveAnytime(solver);
+            return;
+        }
+        CompletableFuture<MoveSequence> future = solver.solveAsync(SOLVE_TIMEOUT_MILLIS, null);
+        pendingSolve = future;
+        future.whenComplete((solution, error) -> SwingUtilities.invokeLater(() -> {
+            if (pendingSolve == future) {
+                pendingSolve = null;
+            }
+            if (future.isCancelled()) {
+                System.out.println("Solve cancelled.");
+            } else if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause instanceof TimeoutException) {
+                    JOptionPane.showMessageDialog(this, "求解超时，请稍后再试", "无法解题", JOptionPane.WARNING_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "求解失败：" + cause, "错误", JOptionPane.ERROR_MESSAGE);
+                }
+            } else if (solution == null) {
+                System.out.println("No solution found.");
+                JOptionPane.showMessageDialog(this, "无法解决当前拼图", "错误", JOptionPane.ERROR_MESSAGE);
+            } else if (!solver.isBoardUnchanged()) {
+                System.out.println("Board changed while solving, solution discarded.");
+            } else {
+                System.out.println("Solution found with " + solution.length() + " moves.");
+                animateMoves(solution);
+            }
+        }));
+    }
+
+    /**
+     * 大棋盘（以及 4x4 模式数据库尚未构建时）不等最优解：第一个解一到就开始播放，之后后台找到的更短解在播放途中替换进来。
+     */
+    private void solveAnytime(PuzzleSolver solver) {
+        anytimeSolver = solver;
+        playedSinceSolve = new MoveSequence.Builder(rows, cols, emptyPiece.getRow() * cols + emptyPiece.getCol());
+        CompletableFuture<MoveSequence> future = solver.solveAnytime(ANYTIME_BUDGET_MILLIS, (solution, bound) ->
+                SwingUtilities.invokeLater(() -> {
+                    // 播放途中换解是从求解开始的局面出发拼接的；没在播放时只有局面没动过才能用
+                    if (anytimeSolver == solver && (playingMoves != null || solver.isBoardUnchanged())) {
+                        System.out.println("Improved solution: " + solution.length() + " moves, within "
+                                + String.format("%.2f", bound) + "x of optimal");
+                        playSolution(solution);
+                    }
+                }));
+        pendingSolve = future;
+        future.whenComplete((solution, error) -> SwingUtilities.invokeLater(() -> {
+            if (pendingSolve == future) {
+                pendingSolve = null;
+            }
+            if (!future.isCancelled() && solution == null && playingMoves == null) {
+                JOptionPane.showMessageDialog(this, "无法解决当前拼图", "错误", JOptionPane.ERROR_MESSAGE);
+            }
+        }));
+    }
 
-        if (solution != null) {
-            System.out.println("Solution found with " + solution.size() + " moves.");
-            animateSolution(solution);
-        } else {
-            System.out.println("No solution found.");
+    /**
+     * 解已经播放完，后台还在改进的随时可停求解就没有用了，停掉它，之后到来的改进一律丢弃。
+     */
+    private void stopAnytimeSolve() {
+        if (anytimeSolver == null) {
+            return;
+        }
+        anytimeSolver = null;
+        playedSinceSolve = null;
+        if (pendingSolve != null) {
+            pendingSolve.cancel(true);
+            pendingSolve = null;
+        }
+    }
+
+    /**
+     * 超大棋盘逐行逐列归约，解一边算一边播放。步数以万计，每一拍直接走若干步，不做滑动动画；播放途中再次点击则停止。
+     */
+    private void solveStreaming(PuzzleSolver solver) {
+        if (solutionTimer != null) {
+            cancelPendingSolve();
+            return;
+        }
+        MoveSequence.Builder stream = new MoveSequence.Builder(rows, cols, emptyPiece.getRow() * cols + emptyPiece.getCol());
+        CompletableFuture<Integer> future = solver.solveStreaming(move -> {
+            synchronized (stream) {
+                stream.accept(move);
+            }
+        });
+        pendingSolve = future;
+        int movesPerTick = Math.max(1, rows * cols / CELLS_PER_STREAMED_MOVE);
+        int[] played = {0};
+        solutionTimer = new Timer(STREAM_DELAY, e -> {
+            // 先看求解是否结束：结束时所有步都已写入，播放到末尾就可以收尾
+            boolean done = future.isDone();
+            boolean finished;
+            synchronized (stream) {
+                for (int i = 0; i < movesPerTick && played[0] < stream.length(); i++) {
+                    int blank = emptyPiece.getRow() * cols + emptyPiece.getCol();
+                    slideInstantly(MoveSequence.step(blank, stream.direction(played[0]++), cols));
+                }
+                finished = done && played[0] == stream.length();
+            }
+            repaint();
+            if (finished) {
+                finishStreaming(future);
+            }
+        });
+        solutionTimer.start();
+    }
+
+    /**
+     * 位于 pos 的拼图块直接移入空格，不做动画。
+     */
+    private void slideInstantly(int pos) {
+        PuzzlePiece piece = pieceAt(pos);
+        int blank = emptyPiece.getRow() * cols + emptyPiece.getCol();
+        piece.setCurrentPosition(emptyPiece.getRow(), emptyPiece.getCol());
+        emptyPiece.setCurrentPosition(pos / cols, pos % cols);
+        pieceGrid[blank] = piece;
+        pieceGrid[pos] = emptyPiece;
+        hintEngine.recordMove();
+    }
+
+    private void finishStreaming(CompletableFuture<Integer> future) {
+        solutionTimer.stop();
+        solutionTimer = null;
+        if (pendingSolve == future) {
+            pendingSolve = null;
+        }
+        if (future.isCancelled()) {
+            return;
+        }
+        if (future.isCompletedExceptionally()) {
+            JOptionPane.showMessageDialog(this, "求解失败", "错误", JOptionPane.ERROR_MESSAGE);
+        } else if (future.getNow(null) == null) {
             JOptionPane.showMessageDialog(this, "无法解决当前拼图", "错误", JOptionPane.ERROR_MESSAGE);
+        } else if (isPuzzleSolved()) {
+            JOptionPane.showMessageDialog(this, "拼图已解决！", "成功", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    /**
+     * 取消正在后台进行的求解和正在播放的解（如果有）。重新洗牌或切换棋盘时调用。
+     */
+    private void cancelPendingSolve() {
+        if (pendingSolve != null) {
+            pendingSolve.cancel(true);
+            pendingSolve = null;
+        }
+        anytimeSolver = null;
+        playedSinceSolve = null;
+        if (solutionTimer != null) {
+            solutionTimer.stop();
+            solutionTimer = null;
+        }
+        playingMoves = null;
+        playingCursor = null;
+    }
+
+    /**
+     * 高亮下一步应该移动的拼图块：华容道模式下是最优解的下一步，标准模式下是最少交换的第一次交换。
+     */
+    public void showHint() {
+        if (isPuzzleSolved() || (solutionTimer != null && solutionTimer.isRunning())) {
+            return;
+        }
+        Point move;
+        if (isStandardMode) {
+            List<Point> swaps = new SwapSolver(puzzlePieces, rows, cols).solve();
+            move = swaps.isEmpty() ? null : swaps.get(0);
+        } else {
+            move = hintEngine.hint(puzzlePieces, HINT_BUDGET_NANOS);
+        }
+        if (move == null) {
+            return;
+        }
+        clearHint();
+        hintPiece = getPieceAt(move.x, move.y);
+        hintTimer = new Timer(HINT_DISPLAY_MILLIS, e -> clearHint());
+        hintTimer.setRepeats(false);
+        hintTimer.start();
+        repaint();
+    }
+
+    private void clearHint() {
+        if (hintTimer != null) {
+            hintTimer.stop();
+            hintTimer = null;
+        }
+        if (hintPiece != null) {
+            hintPiece = null;
+            repaint();
         }
     }
 
@@ -253,32 +513,122 @@ public class GamePanel extends JPanel implements MouseListener, MouseMotionListe
         if (selectedPiece != null) {
             selectedPiece.draw(g2d);
         }
+
+        // 提示的拼图块加一圈黄色边框
+        if (hintPiece != null) {
+            g2d.setColor(Color.YELLOW);
+            g2d.setStroke(new BasicStroke(3f));
+            g2d.drawRect(hintPiece.getX() + 1, hintPiece.getY() + 1, hintPiece.getWidth() - 3, hintPiece.getHeight() - 3);
+        }
         
         g2d.dispose();
     }
 
-    private void animateSolution(List<Point> solution) {
-        Timer timer = new Timer(500, null);
-        final int[] index = {0};
-        
-        timer.addActionListener(e -> {
-            if (index[0] < solution.size()) {
-                Point move = solution.get(index[0]);
-                PuzzlePiece pieceToMove = getPieceAt(move.x, move.y);
+    /**
+     * 标准模式下播放交换，每两个点是一次交换的两个格子。
+     */
+    private void animateSwaps(List<Point> swaps) {
+        int[] index = {0};
+        solutionTimer = new Timer(500, e -> {
+            if (index[0] + 1 < swaps.size()) {
+                Point first = swaps.get(index[0]);
+                Point second = swaps.get(index[0] + 1);
+                PuzzlePiece piece1 = getPieceAt(first.x, first.y);
+                PuzzlePiece piece2 = getPieceAt(second.x, second.y);
+                if (piece1 != null && piece2 != null) {
+                    swapPieces(piece1, piece2);
+                }
+                index[0] += 2;
+            } else {
+                ((Timer)e.getSource()).stop();
+                solutionTimer = null;
+                if (isPuzzleSolved()) {
+                    JOptionPane.showMessageDialog(GamePanel.this, "拼图已解决！", "成功", JOptionPane.INFORMATION_MESSAGE);
+                }
+            }
+        });
+        solutionTimer.start();
+    }
+
+    /**
+     * 华容道模式下播放一个解，每一拍滑动一步。游标放在字段里，{@link #playSolution} 可以在播放途中换掉它。
+     */
+    private void animateMoves(MoveSequence moves) {
+        playingMoves = moves;
+        playingCursor = moves.cursor();
+        solutionTimer = new Timer(500, e -> {
+            if (playingCursor.hasNext()) {
+                PuzzlePiece pieceToMove = pieceAt(playingCursor.nextInt());
+                if (playedSinceSolve != null) {
+                    recordPlayed(playingMoves.direction(playingCursor.index() - 1));
+                }
                 if (pieceToMove != null) {
                     swapWithEmpty(pieceToMove);
                     repaint();
                 }
-                index[0]++;
             } else {
                 ((Timer)e.getSource()).stop();
+                solutionTimer = null;
+                playingMoves = null;
+                playingCursor = null;
+                stopAnytimeSolve();
                 if (isPuzzleSolved()) {
                     JOptionPane.showMessageDialog(GamePanel.this, "拼图已解决！", "成功", JOptionPane.INFORMATION_MESSAGE);
                 }
             }
         });
-        
-        timer.start();
+
+        solutionTimer.start();
+    }
+
+    /**
+     * 播放一个从求解开始时局面出发的解。已经在播放较长的解时，如果先把求解开始以来走过的净路径倒回去再走新解更短，
+     * 就换成新解，否则继续播放原来的解。之前换过解也一样，新解总是接在求解开始时的局面上。
+     */
+    private void playSolution(MoveSequence solution) {
+        if (playingMoves == null) {
+            animateMoves(solution);
+            return;
+        }
+        int played = playedSinceSolve.length();
+        if (played + solution.length() >= playingMoves.length() - playingCursor.index()) {
+            return;
+        }
+        // 倒着撤销净路径上的每一步（走向取反），回到求解开始时的局面后接上新解
+        MoveSequence.Builder replacement = new MoveSequence.Builder(rows, cols, playingCursor.blank(),
+                played + solution.length());
+        for (int i = played - 1; i >= 0; i--) {
+            replacement.appendDirection(MoveSequence.reverse(playedSinceSolve.direction(i)));
+        }
+        for (int i = 0; i < solution.length(); i++) {
+            replacement.appendDirection(solution.direction(i));
+        }
+        playingMoves = replacement.build();
+        playingCursor = playingMoves.cursor();
+    }
+
+    private void recordPlayed(int direction) {
+        int last = playedSinceSolve.length() - 1;
+        if (last >= 0 && playedSinceSolve.direction(last) == MoveSequence.reverse(direction)) {
+            playedSinceSolve.removeLast();
+        } else {
+            playedSinceSolve.appendDirection(direction);
+        }
+    }
+
+    /**
+     * 位于 pos 的拼图块。索引过期（拼图块被其他代码移动过）时先重建。
+     */
+    private PuzzlePiece pieceAt(int pos) {
+        PuzzlePiece piece = pieceGrid == null ? null : pieceGrid[pos];
+        if (piece == null || piece.getRow() * cols + piece.getCol() != pos) {
+            pieceGrid = new PuzzlePiece[rows * cols];
+            for (PuzzlePiece candidate : puzzlePieces) {
+                pieceGrid[candidate.getRow() * cols + candidate.getCol()] = candidate;
+            }
+            piece = pieceGrid[pos];
+        }
+        return piece;
     }
 
     private PuzzlePiece getPieceAt(int col, int row) {
@@ -0,0 +1,58 @@
+/**
+ * 搜索使用的可采纳估值函数。
+ * 为了让每次走子只做增量计算，估值以一个 long 状态表示：由 {@link #init} 对整盘求得，
+ * 之后每走一步用 {@link #update} 推进，{@link #value} 取出估值。
+ * 状态由调用方按搜索深度保存，回溯时直接丢弃即可，实现本身不保存可变状态。
+ */
+public interface Heuristic {
+    /**
+     * @param board board[pos] = tile，0 为空格
+     */
+    long init(int[] board);
+
+    /**
+     * 编号为 tile 的方块从 from 移入空格 to 后的新状态。
+     * 调用时 board 与 positions（positions[tile] = pos）都已经是移动后的局面。
+     */
+    long update(long state, int[] board, int[] positions, int tile, int from, int to);
+
+    int value(long state);
+
+    default int estimate(int[] board) {
+        return value(init(board));
+    }
+
+    /**
+     * 按棋盘尺寸选择默认估值：有模式数据库时用模式数据库，其次是步行距离、线性冲突，最后是曼哈顿距离。
+     */
+    static Heuristic forBoard(int rows, int cols) {
+        AdditivePatternDatabase database = AdditivePatternDatabase.forBoard(rows, cols);
+        if (database != null) {
+            return database;
+        }
+        if (WalkingDistanceHeuristic.supports(rows, cols)) {
+            return new WalkingDistanceHeuristic(rows, cols);
+        }
+        if (LinearConflictHeuristic.supports(rows, cols)) {
+            return new LinearConflictHeuristic(rows, cols);
+        }
+        return new ManhattanHeuristic(rows, cols);
+    }
+
+    /**
+     * 与 {@link #forBoard} 相同，但只在模式数据库已经可用时才使用它，不会为了构建数据库而阻塞。
+     * 供需要立即给出结果的随时可停求解使用。
+     */
+    static Heuristic availableForBoard(int rows, int cols) {
+        if (AdditivePatternDatabase.isAvailable(rows, cols)) {
+            return AdditivePatternDatabase.forBoard(rows, cols);
+        }
+        if (WalkingDistanceHeuristic.supports(rows, cols)) {
+            return new WalkingDistanceHeuristic(rows, cols);
+        }
+        if (LinearConflictHeuristic.supports(rows, cols)) {
+            return new LinearConflictHeuristic(rows, cols);
+        }
+        return new ManhattanHeuristic(rows, cols);
+    }
+}
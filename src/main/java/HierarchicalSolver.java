@@ -0,0 +1,335 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 大棋盘（10x10 到 30x30 乃至更大）的逐行逐列归约求解，解不是最优的，但时间和走子数都接近线性。
+ * <p>
+ * 每次还原剩余区域中较长一边的第一行（或第一列），区域缩小一行（列），直到只剩右下角的 3x3
+ * （2xN 的长条只剩 2x3，Nx2 只剩 3x2），最后用 IDA* 求这个小区域的最优解。还原一行时，前面的方块逐个用
+ * "把空格绕到方块前方再让方块进一格" 的方法送到位并锁定；最后两个方块 a、b 先把 b 放在 a 的位置、a 放在它下方，
+ * 空格绕到 b 的位置后两步同时就位，避免把已还原的方块推开。还原列与此对称。
+ * 空格绕行用广度优先搜索，只在未锁定的格子中进行；推进一格时绕行的距离很短，搜索只覆盖方块附近的几格。
+ * <p>
+ * 走子一经算出就交给调用方，不需要等整条解算完。
+ */
+public class HierarchicalSolver {
+    /** 剩下的核心区域边长，棋盘这一边本身更短时取棋盘的边长 */
+    private static final int CORE = 3;
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final int[] tiles;
+    private final int[] positions;
+    private final boolean[] locked;
+    private final int[] visited;
+    private final int[] parent;
+    private final int[] queue;
+    private int stamp;
+    private final int coreRows;
+    private final int coreCols;
+    private final IdaStarSearch coreSearch;
+    private IntConsumer sink;
+    private int moveCount;
+
+    public HierarchicalSolver(int rows, int cols) {
+        if (rows < 2 || cols < 2 || rows * cols < 6) {
+            throw new IllegalArgumentException("Board must be at least 2x3: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.size = rows * cols;
+        this.tiles = new int[size];
+        this.positions = new int[size];
+        this.locked = new boolean[size];
+        this.visited = new int[size];
+        this.parent = new int[size];
+        this.queue = new int[size];
+        this.coreRows = Math.min(rows, CORE);
+        this.coreCols = Math.min(cols, CORE);
+        this.coreSearch = new IdaStarSearch(coreRows, coreCols, new LinearConflictHeuristic(coreRows, coreCols));
+    }
+
+    /**
+     * 求解给定棋盘，返回依次移入空格的方块位置（row * cols + col），不可解时返回 null。
+     */
+    public int[] solve(int[] state) {
+        int[][] buffer = {new int[Math.max(16, size * 4)]};
+        int length = solve(state, move -> {
+            int count = moveCount - 1;
+            if (count == buffer[0].length) {
+                buffer[0] = Arrays.copyOf(buffer[0], count * 2);
+            }
+            buffer[0][count] = move;
+        });
+        return length < 0 ? null : Arrays.copyOf(buffer[0], length);
+    }
+
+    /**
+     * 求解给定棋盘，每算出一步就把移入空格的方块位置交给 sink。返回总步数，不可解时返回 -1 且不调用 sink。
+     */
+    public int solve(int[] state, IntConsumer sink) {
+        if (state.length != size) {
+            throw new IllegalArgumentException("Expected " + size + " cells, got " + state.length);
+        }
+        if (!PuzzleParity.isSolvable(rows, cols, state)) {
+            return -1;
+        }
+        for (int pos = 0; pos < size; pos++) {
+            tiles[pos] = state[pos];
+            positions[state[pos]] = pos;
+        }
+        Arrays.fill(locked, false);
+        this.sink = sink;
+        moveCount = 0;
+        try {
+            int top = 0;
+            int left = 0;
+            while (rows - top > coreRows || cols - left > coreCols) {
+                if (rows - top >= cols - left) {
+                    solveRow(top, left);
+                    top++;
+                } else {
+                    solveColumn(left, top);
+                    left++;
+                }
+            }
+            solveCore(top, left);
+        } finally {
+            this.sink = null;
+        }
+        return moveCount;
+    }
+
+    /**
+     * 还原第 row 行中 left 列及其右边的部分，该行下面至少还有三行未还原。
+     */
+    private void solveRow(int row, int left) {
+        int start = row * cols;
+        for (int col = left; col < cols - 2; col++) {
+            require(place(start + col + 1, start + col, true));
+            locked[start + col] = true;
+        }
+        placeLastTwo(start + cols - 2, start + cols - 1, cols, true);
+    }
+
+    /**
+     * 还原第 col 列中 top 行及其下面的部分，该列右边至少还有三列未还原。
+     */
+    private void solveColumn(int col, int top) {
+        for (int row = top; row < rows - 2; row++) {
+            int target = row * cols + col;
+            require(place(target + 1, target, false));
+            locked[target] = true;
+        }
+        placeLastTwo((rows - 2) * cols + col, (rows - 1) * cols + col, 1, false);
+    }
+
+    /**
+     * 一行（列）末尾的两格 first、second：先把第二格的方块放到 first，第一格的方块放到 first 旁边
+     * （offset 指向还原方向的垂直方向，即行的下方或列的右方），再把空格绕到 second，两步同时就位。
+     * 第一格的方块被推到 second 旁边、空格困在 second 时两者互相堵住，这时改为在这两格及其旁边共六格的小窗口里
+     * 搜索空格的走法，直接把两个方块转到位。
+     */
+    private void placeLastTwo(int first, int second, int offset, boolean horizontalFirst) {
+        int a = first + 1;
+        int b = second + 1;
+        if (positions[a] != first || positions[b] != second) {
+            require(place(b, first, horizontalFirst));
+            locked[first] = true;
+            if (place(a, first + offset, horizontalFirst)) {
+                locked[first + offset] = true;
+                require(moveBlankTo(second));
+                move(first);
+                move(first + offset);
+                locked[first + offset] = false;
+            } else {
+                rotateIntoPlace(first, second, offset);
+            }
+        }
+        locked[first] = true;
+        locked[second] = true;
+    }
+
+    /**
+     * 窗口为 first、second 以及它们沿 offset 方向的四个格子（2x3 或 3x2），空格和两个方块都已在窗口内。
+     * 只关心空格和两个方块的位置，共 6 * 5 * 4 种状态，广度优先搜索把第一格的方块转到 first、第二格的转到 second。
+     */
+    private void rotateIntoPlace(int first, int second, int offset) {
+        int[] window = {first, second, first + offset, second + offset, first + 2 * offset, second + 2 * offset};
+        int start = encode(indexOf(window, positions[first + 1]), indexOf(window, positions[second + 1]),
+                indexOf(window, positions[0]));
+        int[] from = new int[216];
+        int[] via = new int[216];
+        Arrays.fill(from, -1);
+        from[start] = start;
+        int[] states = new int[216];
+        int head = 0;
+        int tail = 0;
+        states[tail++] = start;
+        int goal = -1;
+        while (head < tail && goal < 0) {
+            int state = states[head++];
+            int tileA = state / 36;
+            int tileB = state / 6 % 6;
+            int blank = state % 6;
+            for (int next = 0; next < window.length; next++) {
+                int distance = Math.abs(window[next] / cols - window[blank] / cols)
+                        + Math.abs(window[next] % cols - window[blank] % cols);
+                if (distance != 1) {
+                    continue;
+                }
+                int successor = encode(tileA == next ? blank : tileA, tileB == next ? blank : tileB, next);
+                if (from[successor] < 0) {
+                    from[successor] = state;
+                    via[successor] = next;
+                    states[tail++] = successor;
+                    if (successor / 36 == 0 && successor / 6 % 6 == 1) {
+                        goal = successor;
+                    }
+                }
+            }
+        }
+        require(goal >= 0);
+        int length = 0;
+        for (int state = goal; state != start; state = from[state]) {
+            states[length++] = via[state];
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            move(window[states[i]]);
+        }
+    }
+
+    private static int encode(int tileA, int tileB, int blank) {
+        return tileA * 36 + tileB * 6 + blank;
+    }
+
+    private static int indexOf(int[] window, int pos) {
+        for (int i = 0; i < window.length; i++) {
+            if (window[i] == pos) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Position " + pos + " is outside the window");
+    }
+
+    /**
+     * 把方块 tile 一格一格送到 target：每次先把空格绕到方块前进方向的下一格（不经过方块本身和已锁定的格子），
+     * 再让方块移入空格。horizontalFirst 为 true 时先走完横向再走纵向，否则反之；首选方向被挡住时换另一个方向。
+     * 两个方向的下一格空格都到不了时返回 false，方块停在当时的位置。
+     */
+    private boolean place(int tile, int target, boolean horizontalFirst) {
+        int pos = positions[tile];
+        int targetRow = target / cols;
+        int targetCol = target % cols;
+        while (pos != target) {
+            int row = pos / cols;
+            int col = pos % cols;
+            int horizontal = col == targetCol ? -1 : pos + Integer.signum(targetCol - col);
+            int vertical = row == targetRow ? -1 : pos + Integer.signum(targetRow - row) * cols;
+            int preferred = horizontalFirst ? horizontal : vertical;
+            int other = horizontalFirst ? vertical : horizontal;
+            locked[pos] = true;
+            boolean reached = preferred >= 0 && !locked[preferred] && moveBlankTo(preferred);
+            if (!reached) {
+                preferred = other;
+                reached = preferred >= 0 && !locked[preferred] && moveBlankTo(preferred);
+            }
+            locked[pos] = false;
+            if (!reached) {
+                return false;
+            }
+            move(pos);
+            pos = preferred;
+        }
+        return true;
+    }
+
+    private static void require(boolean done) {
+        if (!done) {
+            throw new IllegalStateException("Reduction got stuck");
+        }
+    }
+
+    /**
+     * 沿未锁定格子中的最短路把空格移到 target，不可达时返回 false 且不走子。
+     */
+    private boolean moveBlankTo(int target) {
+        int blank = positions[0];
+        if (blank == target) {
+            return true;
+        }
+        stamp++;
+        visited[blank] = stamp;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = blank;
+        while (head < tail && visited[target] != stamp) {
+            int pos = queue[head++];
+            int row = pos / cols;
+            int col = pos % cols;
+            if (row > 0) tail = visit(pos, pos - cols, tail);
+            if (row < rows - 1) tail = visit(pos, pos + cols, tail);
+            if (col > 0) tail = visit(pos, pos - 1, tail);
+            if (col < cols - 1) tail = visit(pos, pos + 1, tail);
+        }
+        if (visited[target] != stamp) {
+            return false;
+        }
+        // 从终点沿 parent 倒推，路径暂存在队列数组的开头
+        int length = 0;
+        for (int pos = target; pos != blank; pos = parent[pos]) {
+            queue[length++] = pos;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            move(queue[i]);
+        }
+        return true;
+    }
+
+    private int visit(int from, int to, int tail) {
+        if (!locked[to] && visited[to] != stamp) {
+            visited[to] = stamp;
+            parent[to] = from;
+            queue[tail++] = to;
+        }
+        return tail;
+    }
+
+    /**
+     * 右下角剩下的核心区域换成小棋盘的编号求最优解，再把走子换回整盘的位置。
+     */
+    private void solveCore(int top, int left) {
+        int[] core = new int[coreRows * coreCols];
+        for (int i = 0; i < core.length; i++) {
+            int tile = tiles[(top + i / coreCols) * cols + left + i % coreCols];
+            core[i] = tile == 0 ? 0 : ((tile - 1) / cols - top) * coreCols + (tile - 1) % cols - left + 1;
+        }
+        int[] moves = coreSearch.solve(core);
+        for (int local : moves) {
+            move((top + local / coreCols) * cols + left + local % coreCols);
+        }
+    }
+
+    /**
+     * 位于 pos 的方块移入相邻的空格。
+     */
+    private void move(int pos) {
+        int blank = positions[0];
+        int tile = tiles[pos];
+        tiles[blank] = tile;
+        positions[tile] = blank;
+        tiles[pos] = 0;
+        positions[0] = pos;
+        moveCount++;
+        sink.accept(pos);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+}
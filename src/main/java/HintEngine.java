@@ -0,0 +1,275 @@
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 下一步提示。同一个棋盘尺寸在整局游戏中复用一个实例，估值函数和搜索器只创建一次。
+ * <ul>
+ * <li>3x3 直接查 {@link EightPuzzleTable}，不到 1 毫秒。</li>
+ * <li>更大的棋盘记住上一次求出的最优解：玩家照着走时沿解往前对齐即可，不再搜索；
+ * 偏离时先查 {@link SolutionCache}，再以 "上次的最优步数 - 此后实际走过的步数"（三角不等式给出的下界）
+ * 作为初始阈值重新搜索，在给定时间内搜不完就退回到估值最小的相邻局面。
+ * 走过的步数由调用方通过 {@link #recordMove()} 告知，换了局面时调用 {@link #forget()}。</li>
+ * </ul>
+ * 提示在界面线程上调用，不能为构建模式数据库而等待：先用已经可用的估值，同时在后台加载模式数据库，加载完成后的提示换用它。
+ * 后台自动构建只限于 4x4，5x5 只加载磁盘上已有的文件。
+ * 搜索本身是 {@link IdaStarSearch}，每个节点不分配内存；每次调用只在找到新解时分配一次。
+ */
+public class HintEngine {
+    public static final int NO_MOVE = -1;
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final int[] pathBoard;
+    private final int[] lastState;
+    private final int[] lastPositions;
+    private final int[] positions;
+    private Heuristic heuristic;
+    private IdaStarSearch search;
+    private SolutionCache cache = SolutionCache.getDefault();
+    private int[] path;
+    private int pathIndex;
+    private int lastDistance = -1;
+    private int movesSinceLastHint;
+    private CompletableFuture<AdditivePatternDatabase> upgrade;
+    private long deadline;
+
+    public HintEngine(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.size = rows * cols;
+        this.pathBoard = new int[size];
+        this.lastState = new int[size];
+        this.lastPositions = new int[size];
+        this.positions = new int[size];
+    }
+
+    /**
+     * 返回当前局面最优解的下一步（移入空格的方块位置 row * cols + col），已还原或无解时返回 {@link #NO_MOVE}。
+     *
+     * @param state       state[pos] = tile，0 为空格；调用期间会被临时修改，返回前复原
+     * @param budgetNanos 需要搜索时的时间上限，超时后返回估值最小的一步
+     */
+    public int hint(int[] state, long budgetNanos) {
+        if (isGoal(state)) {
+            return NO_MOVE;
+        }
+        if (rows == 3 && cols == 3) {
+            return EightPuzzleTable.getInstance().nextMove(state);
+        }
+        int move = followPath(state);
+        if (move != NO_MOVE) {
+            return move;
+        }
+
+        int[] cached = cache == null ? null : cache.lookup(rows, cols, state);
+        if (cached != null && cached.length > 0) {
+            return adopt(state, cached);
+        }
+
+        prepareSearch();
+        int seed = lowerBound(state);
+        deadline = System.nanoTime() + budgetNanos;
+        int[] moves = search.solve(state, seed);
+        if (moves != null && moves.length > 0) {
+            // 初始阈值不超过真实步数，搜索没有被时限打断就找到的解一定最优，可以放进缓存
+            if (cache != null) {
+                cache.put(rows, cols, state, moves);
+            }
+            return adopt(state, moves);
+        }
+        path = null;
+        return greedyMove(state);
+    }
+
+    /**
+     * 玩家（或播放的解）走了一步，用来维护上次提示之后走过的步数。
+     */
+    public void recordMove() {
+        movesSinceLastHint++;
+    }
+
+    /**
+     * 换了一个局面（重新洗牌、发题等），之前的解和步数都不再适用。
+     */
+    public void forget() {
+        path = null;
+        lastDistance = -1;
+        movesSinceLastHint = 0;
+    }
+
+    /**
+     * 首次搜索时创建搜索器；模式数据库在后台加载完成后换用它。
+     */
+    private void prepareSearch() {
+        if (heuristic == null) {
+            heuristic = Heuristic.availableForBoard(rows, cols);
+        }
+        if (!(heuristic instanceof AdditivePatternDatabase)) {
+            if (upgrade == null && shouldLoadDatabase()) {
+                upgrade = AdditivePatternDatabase.load(rows, cols);
+            }
+            if (upgrade != null && upgrade.isDone() && !upgrade.isCompletedExceptionally()) {
+                heuristic = upgrade.join();
+                search = null;
+            }
+        }
+        if (search == null) {
+            search = new IdaStarSearch(rows, cols, heuristic);
+            search.setStopCondition(() -> System.nanoTime() - deadline >= 0);
+        }
+    }
+
+    /**
+     * 4x4 的模式数据库十几秒就能建好，可以在后台自动构建；5x5 的要占用近 1 GB 内存和几分钟的全部 CPU，
+     * 不能因为点了一下提示就开始，只在文件已经在磁盘上时加载。
+     */
+    private boolean shouldLoadDatabase() {
+        return AdditivePatternDatabase.partitionFor(rows, cols) != null
+                && (rows == 4 && cols == 4 || AdditivePatternDatabase.isAvailable(rows, cols));
+    }
+
+    /**
+     * 当前局面最优步数的下界。从上次提示的局面走了 m 步到这里，d(现在) >= d(上次) - m。
+     * 步数与两局面间的位移不相符（漏记了走子）时不冒险，返回 0，由搜索从估值开始。
+     */
+    private int lowerBound(int[] state) {
+        if (lastDistance < 0) {
+            return 0;
+        }
+        int displacement = displacement(state);
+        if (movesSinceLastHint < displacement || (movesSinceLastHint - displacement) % 2 != 0) {
+            return 0;
+        }
+        return Math.max(0, lastDistance - movesSinceLastHint);
+    }
+
+    /**
+     * 按拼图块的当前位置求提示，返回应移入空格的方块所在格子（x 为列，y 为行），没有可提示的步时返回 null。
+     */
+    public Point hint(List<PuzzlePiece> pieces, long budgetNanos) {
+        int[] state = new int[size];
+        for (PuzzlePiece piece : pieces) {
+            int index = piece.getRow() * cols + piece.getCol();
+            state[index] = piece.getImage() == null ? 0 : piece.getCorrectRow() * cols + piece.getCorrectCol() + 1;
+        }
+        int move = hint(state, budgetNanos);
+        return move == NO_MOVE ? null : new Point(move % cols, move / cols);
+    }
+
+    /**
+     * 如果玩家照着上一次的解走了若干步，返回解中接下来的一步；否则返回 {@link #NO_MOVE}。
+     */
+    private int followPath(int[] state) {
+        if (path == null) {
+            return NO_MOVE;
+        }
+        int blank = indexOf(pathBoard, 0);
+        for (int step = pathIndex; step < path.length; step++) {
+            if (Arrays.equals(pathBoard, state)) {
+                pathIndex = step;
+                remember(state, path.length - step);
+                return path[step];
+            }
+            int next = path[step];
+            pathBoard[blank] = pathBoard[next];
+            pathBoard[next] = 0;
+            blank = next;
+        }
+        path = null;
+        return NO_MOVE;
+    }
+
+    private int adopt(int[] state, int[] moves) {
+        path = moves;
+        pathIndex = 0;
+        System.arraycopy(state, 0, pathBoard, 0, size);
+        remember(state, moves.length);
+        return moves[0];
+    }
+
+    private void remember(int[] state, int distance) {
+        System.arraycopy(state, 0, lastState, 0, size);
+        for (int pos = 0; pos < size; pos++) {
+            lastPositions[state[pos]] = pos;
+        }
+        lastDistance = distance;
+        movesSinceLastHint = 0;
+    }
+
+    /**
+     * 上次提示时的局面与 state 之间各方块（不含空格）的曼哈顿位移之和。
+     */
+    private int displacement(int[] state) {
+        for (int pos = 0; pos < size; pos++) {
+            positions[state[pos]] = pos;
+        }
+        int total = 0;
+        for (int tile = 1; tile < size; tile++) {
+            int from = lastPositions[tile];
+            int to = positions[tile];
+            total += Math.abs(from / cols - to / cols) + Math.abs(from % cols - to % cols);
+        }
+        return total;
+    }
+
+    private int greedyMove(int[] state) {
+        int blank = indexOf(state, 0);
+        int best = NO_MOVE;
+        int bestValue = Integer.MAX_VALUE;
+        int row = blank / cols;
+        int col = blank % cols;
+        int[] candidates = {row > 0 ? blank - cols : -1, row < rows - 1 ? blank + cols : -1,
+                col > 0 ? blank - 1 : -1, col < cols - 1 ? blank + 1 : -1};
+        for (int next : candidates) {
+            if (next < 0) {
+                continue;
+            }
+            state[blank] = state[next];
+            state[next] = 0;
+            int value = heuristic.estimate(state);
+            state[next] = state[blank];
+            state[blank] = 0;
+            if (value < bestValue) {
+                bestValue = value;
+                best = next;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 命中缓存时直接采用缓存的解，默认是 {@link SolutionCache#getDefault()}，传 null 关闭。
+     */
+    public void setSolutionCache(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    private boolean isGoal(int[] state) {
+        for (int pos = 0; pos < size - 1; pos++) {
+            if (state[pos] != pos + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(int[] board, int tile) {
+        for (int pos = 0; pos < board.length; pos++) {
+            if (board[pos] == tile) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,355 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 原地走子的 IDA* 搜索核心。不超过 16 格（4x4）的棋盘同时维护紧凑 long 编码（每格 4 位）。
+ * 走子直接修改棋盘并在回溯时撤销，路径写入一块预分配的缓冲区，因此搜索过程中不会为每个节点分配任何对象。
+ * 估值、空格位置和错位方块数都随走子增量维护，每个节点的代价与棋盘大小无关。
+ * 走子方向经过 {@link MovePruner} 过滤，默认只禁止撤销上一步，也可以换成由重复串生成的状态机。
+ * 可选地挂一张 {@link TranspositionTable}，此时同时增量维护局面的 Zobrist 哈希，剪掉经由置换重复到达的子树。
+ */
+public class IdaStarSearch {
+    public static final int MAX_PACKED_CELLS = 16;
+    public static final int FOUND = -1;
+    public static final int STOPPED = -2;
+    private static final int STOP_CHECK_MASK = 0xFFF;
+    private static final int INITIAL_PATH_CAPACITY = 128;
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final Heuristic heuristic;
+    private final int[] tiles;
+    private final int[] positions;
+    private final int[][] neighbors;
+    private final int[][] directions;
+    private final boolean packed;
+    private final long goal;
+
+    private long board;
+    private int blank;
+    private int misplaced;
+    private int[] path = new int[INITIAL_PATH_CAPACITY];
+    private int pathLength;
+    private long nodesExpanded;
+    private long elapsedNanos;
+    private int iterations;
+    private int currentThreshold;
+    private BooleanSupplier stopCondition;
+    private SolveProgressListener progressListener;
+    private MovePruner pruner = MovePruner.reverseOnly();
+    private TranspositionTable table;
+    private long[] zobrist;
+    private long hash;
+
+    public IdaStarSearch(int rows, int cols, Heuristic heuristic) {
+        this.rows = rows;
+        this.cols = cols;
+        this.size = rows * cols;
+        this.heuristic = heuristic;
+        this.tiles = new int[size];
+        this.positions = new int[size];
+        this.neighbors = buildNeighbors(rows, cols);
+        this.directions = buildDirections(rows, cols);
+        this.packed = size <= MAX_PACKED_CELLS;
+        int[] goalState = new int[size];
+        for (int i = 0; i < size - 1; i++) {
+            goalState[i] = i + 1;
+        }
+        this.goal = packed ? pack(goalState) : 0L;
+    }
+
+    private static int[][] buildNeighbors(int rows, int cols) {
+        int[][] result = new int[rows * cols][];
+        for (int pos = 0; pos < rows * cols; pos++) {
+            int row = pos / cols;
+            int col = pos % cols;
+            int[] buffer = new int[4];
+            int count = 0;
+            if (row > 0) buffer[count++] = pos - cols;
+            if (row < rows - 1) buffer[count++] = pos + cols;
+            if (col > 0) buffer[count++] = pos - 1;
+            if (col < cols - 1) buffer[count++] = pos + 1;
+            result[pos] = Arrays.copyOf(buffer, count);
+        }
+        return result;
+    }
+
+    /**
+     * 与 {@link #buildNeighbors} 一一对应的空格走向。
+     */
+    private static int[][] buildDirections(int rows, int cols) {
+        int[][] result = new int[rows * cols][];
+        for (int pos = 0; pos < rows * cols; pos++) {
+            int row = pos / cols;
+            int col = pos % cols;
+            int[] buffer = new int[4];
+            int count = 0;
+            if (row > 0) buffer[count++] = MovePruner.UP;
+            if (row < rows - 1) buffer[count++] = MovePruner.DOWN;
+            if (col > 0) buffer[count++] = MovePruner.LEFT;
+            if (col < cols - 1) buffer[count++] = MovePruner.RIGHT;
+            result[pos] = Arrays.copyOf(buffer, count);
+        }
+        return result;
+    }
+
+    /**
+     * 把 state[pos] = tile 形式的棋盘（不超过 16 格）压缩为 long，第 pos 格占第 4*pos 起的 4 位。
+     */
+    public static long pack(int[] state) {
+        long packed = 0L;
+        for (int pos = 0; pos < state.length; pos++) {
+            packed |= (long) state[pos] << (pos << 2);
+        }
+        return packed;
+    }
+
+    public static int tileAt(long packed, int pos) {
+        return (int) (packed >>> (pos << 2)) & 0xF;
+    }
+
+    /**
+     * 求解给定棋盘，返回依次移入空格的方块位置（row * cols + col），无解或被停止时返回 null。
+     */
+    public int[] solve(int[] state) {
+        return solve(state, 0);
+    }
+
+    /**
+     * 同 {@link #solve(int[])}，但第一轮阈值至少为 minThreshold。
+     * 已知最优解长度的下界（例如上一次求解的结果减去之后走过的步数）时，可以跳过前面注定失败的几轮。
+     */
+    public int[] solve(int[] state, int minThreshold) {
+        nodesExpanded = 0;
+        iterations = 0;
+        if (table != null) {
+            table.clear();
+        }
+        long start = System.nanoTime();
+        try {
+            long initial = load(state);
+            int threshold = Math.max(heuristic.value(initial), minThreshold);
+            while (true) {
+                currentThreshold = threshold;
+                iterations++;
+                if (progressListener != null) {
+                    progressListener.onProgress(threshold, nodesExpanded);
+                }
+                ensurePathCapacity(threshold + 1);
+                int result = search(0, threshold, initial, 0);
+                if (result == FOUND) {
+                    return Arrays.copyOf(path, pathLength);
+                }
+                if (result == STOPPED || result == Integer.MAX_VALUE) {
+                    return null;
+                }
+                threshold = result;
+            }
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * 对一个已走了 depth 步的局面做一轮阈值为 threshold 的深度优先搜索，供并行搜索按子树分派使用。
+     * 返回 {@link #FOUND}（从该局面出发的走法见 {@link #getSolutionFrom}）、{@link #STOPPED}，
+     * 或者超出阈值的最小 f 值。节点计数在多次调用间累加。
+     *
+     * @param pruneState 走到该局面的方向串在 {@link MovePruner} 中的状态
+     */
+    public int searchIteration(int[] state, int depth, int threshold, int pruneState) {
+        currentThreshold = threshold;
+        long initial = load(state);
+        ensurePathCapacity(threshold + 1);
+        return search(depth, threshold, initial, pruneState);
+    }
+
+    /**
+     * 最近一次找到的解中从第 depth 步开始的部分。
+     */
+    public int[] getSolutionFrom(int depth) {
+        return Arrays.copyOfRange(path, depth, pathLength);
+    }
+
+    /**
+     * 设置后每隔若干节点检查一次，条件成立（取消、超时或其他线程已找到解）时搜索尽快返回 {@link #STOPPED}。
+     */
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    /**
+     * 设置走子剪枝的状态机，传 null 时退回到只禁止撤销上一步。
+     */
+    public void setMovePruner(MovePruner pruner) {
+        this.pruner = pruner == null ? MovePruner.reverseOnly() : pruner;
+    }
+
+    public MovePruner getMovePruner() {
+        return pruner;
+    }
+
+    /**
+     * 设置置换表，传 null 关闭。{@link #solve} 开始时清空表，{@link #searchIteration} 则沿用表中已有的条目。
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+        if (table != null && zobrist == null) {
+            // 固定种子，同一局面在不同工作线程里的哈希相同
+            SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+            zobrist = new long[size * size];
+            for (int i = 0; i < zobrist.length; i++) {
+                zobrist[i] = random.nextLong();
+            }
+        }
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * 每轮迭代开始时以及每隔若干节点回调一次进度。
+     */
+    public void setProgressListener(SolveProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    private long load(int[] state) {
+        board = packed ? pack(state) : 0L;
+        blank = -1;
+        misplaced = 0;
+        for (int pos = 0; pos < size; pos++) {
+            tiles[pos] = state[pos];
+            positions[state[pos]] = pos;
+            if (state[pos] == 0) {
+                blank = pos;
+            } else if (state[pos] != pos + 1) {
+                misplaced++;
+            }
+        }
+        if (blank < 0) {
+            throw new IllegalArgumentException("No empty cell in state");
+        }
+        if (table != null) {
+            hash = 0L;
+            for (int pos = 0; pos < size; pos++) {
+                hash ^= zobrist[state[pos] * size + pos];
+            }
+        }
+        pathLength = 0;
+        return heuristic.init(tiles);
+    }
+
+    private void ensurePathCapacity(int capacity) {
+        if (path.length < capacity) {
+            path = Arrays.copyOf(path, Math.max(capacity, path.length * 2));
+        }
+    }
+
+    private int search(int g, int threshold, long estimate, int pruneState) {
+        if ((++nodesExpanded & STOP_CHECK_MASK) == 0 && shouldStop()) {
+            return STOPPED;
+        }
+        int f = g + heuristic.value(estimate);
+        if (f > threshold) {
+            return f;
+        }
+        if (packed ? board == goal : misplaced == 0) {
+            pathLength = g;
+            return FOUND;
+        }
+        if (table != null && table.probe(hash, g, threshold, pruneState)) {
+            return Integer.MAX_VALUE;
+        }
+        int min = Integer.MAX_VALUE;
+        int emptyPos = blank;
+        int[] candidates = neighbors[emptyPos];
+        int[] moveDirections = directions[emptyPos];
+        for (int i = 0; i < candidates.length; i++) {
+            int nextState = pruner.next(pruneState, moveDirections[i]);
+            if (nextState == MovePruner.PRUNED) {
+                continue;
+            }
+            int next = candidates[i];
+            int tile = tiles[next];
+            long delta = packed ? (long) tile * ((1L << (emptyPos << 2)) | (1L << (next << 2))) : 0L;
+            long hashDelta = table != null
+                    ? zobrist[tile * size + next] ^ zobrist[tile * size + emptyPos] ^ zobrist[next] ^ zobrist[emptyPos]
+                    : 0L;
+            move(tile, next, emptyPos);
+            board ^= delta;
+            hash ^= hashDelta;
+            path[g] = next;
+
+            int result = search(g + 1, threshold, heuristic.update(estimate, tiles, positions, tile, next, emptyPos), nextState);
+
+            move(tile, emptyPos, next);
+            board ^= delta;
+            hash ^= hashDelta;
+            if (result < 0) {
+                return result;
+            }
+            if (result < min) {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+    private boolean shouldStop() {
+        if (progressListener != null) {
+            progressListener.onProgress(currentThreshold, nodesExpanded);
+        }
+        return stopCondition != null && stopCondition.getAsBoolean();
+    }
+
+    private void move(int tile, int from, int to) {
+        if (from == tile - 1) {
+            misplaced++;
+        } else if (to == tile - 1) {
+            misplaced--;
+        }
+        tiles[to] = tile;
+        tiles[from] = 0;
+        positions[tile] = to;
+        positions[0] = from;
+        blank = from;
+    }
+
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * 估值随走子增量维护，每个节点恰好取值一次，因此与节点数相同。
+     */
+    public long getHeuristicEvaluations() {
+        return nodesExpanded;
+    }
+
+    /**
+     * 最近一次 {@link #solve} 运行的阈值轮数。
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodesExpanded * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * 曼哈顿距离加线性冲突：同一行（列）中目标也在该行（列）的方块若顺序颠倒，
+ * 至少要有一个让开再回来，每个必须让开的方块额外计 2 步。
+ * 每一行、每一列的冲突数按行内容编码后预先查表，走一步只需重算受影响的两条线，代价 O(rows + cols)。
+ */
+public class LinearConflictHeuristic implements Heuristic {
+    public static final int MAX_LINE_LENGTH = 6;
+
+    private final int rows;
+    private final int cols;
+    private final ManhattanHeuristic manhattan;
+    private final byte[] rowConflicts;
+    private final byte[] colConflicts;
+    private final int[] rowRadix;
+    private final int[] colRadix;
+
+    public LinearConflictHeuristic(int rows, int cols) {
+        if (!supports(rows, cols)) {
+            throw new IllegalArgumentException("Linear conflict tables support lines up to " + MAX_LINE_LENGTH);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.manhattan = new ManhattanHeuristic(rows, cols);
+        this.rowRadix = radix(cols);
+        this.colRadix = radix(rows);
+        this.rowConflicts = buildConflictTable(cols);
+        this.colConflicts = buildConflictTable(rows);
+    }
+
+    public static boolean supports(int rows, int cols) {
+        return rows <= MAX_LINE_LENGTH && cols <= MAX_LINE_LENGTH;
+    }
+
+    private static int[] radix(int length) {
+        int[] radix = new int[length];
+        int value = 1;
+        for (int i = 0; i < length; i++) {
+            radix[i] = value;
+            value *= length + 1;
+        }
+        return radix;
+    }
+
+    /**
+     * 线编码：第 i 格的数字为该格方块在本线上的目标序号加 1，不属于本线的方块或空格为 0。
+     * 表值为 2 * (属于本线的方块数 - 目标序号的最长递增子序列长度)。
+     */
+    private static byte[] buildConflictTable(int length) {
+        int entries = 1;
+        for (int i = 0; i < length; i++) {
+            entries *= length + 1;
+        }
+        byte[] table = new byte[entries];
+        int[] sequence = new int[length];
+        int[] tails = new int[length];
+        for (int code = 0; code < entries; code++) {
+            int count = 0;
+            int rest = code;
+            for (int i = 0; i < length; i++) {
+                int digit = rest % (length + 1);
+                rest /= length + 1;
+                if (digit != 0) {
+                    sequence[count++] = digit;
+                }
+            }
+            int longest = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = 0;
+                while (slot < longest && tails[slot] < sequence[i]) {
+                    slot++;
+                }
+                tails[slot] = sequence[i];
+                if (slot == longest) {
+                    longest++;
+                }
+            }
+            table[code] = (byte) (2 * (count - longest));
+        }
+        return table;
+    }
+
+    private int rowDigit(int tile, int row) {
+        return tile != 0 && (tile - 1) / cols == row ? (tile - 1) % cols + 1 : 0;
+    }
+
+    private int colDigit(int tile, int col) {
+        return tile != 0 && (tile - 1) % cols == col ? (tile - 1) / cols + 1 : 0;
+    }
+
+    private int rowCode(int[] board, int row) {
+        int code = 0;
+        for (int col = 0; col < cols; col++) {
+            code += rowDigit(board[row * cols + col], row) * rowRadix[col];
+        }
+        return code;
+    }
+
+    private int colCode(int[] board, int col) {
+        int code = 0;
+        for (int row = 0; row < rows; row++) {
+            code += colDigit(board[row * cols + col], col) * colRadix[row];
+        }
+        return code;
+    }
+
+    @Override
+    public long init(int[] board) {
+        long h = manhattan.init(board);
+        for (int row = 0; row < rows; row++) {
+            h += rowConflicts[rowCode(board, row)];
+        }
+        for (int col = 0; col < cols; col++) {
+            h += colConflicts[colCode(board, col)];
+        }
+        return h;
+    }
+
+    @Override
+    public long update(long state, int[] board, int[] positions, int tile, int from, int to) {
+        long h = state - manhattan.distance(tile, from) + manhattan.distance(tile, to);
+        int fromRow = from / cols;
+        int fromCol = from % cols;
+        int toRow = to / cols;
+        int toCol = to % cols;
+        if (fromRow == toRow) {
+            // 水平移动：行内顺序不变，只有离开和进入的两列发生变化
+            int leftCode = colCode(board, fromCol);
+            int enteredCode = colCode(board, toCol);
+            h += colConflicts[leftCode] - colConflicts[leftCode + colDigit(tile, fromCol) * colRadix[fromRow]];
+            h += colConflicts[enteredCode] - colConflicts[enteredCode - colDigit(tile, toCol) * colRadix[toRow]];
+        } else {
+            int leftCode = rowCode(board, fromRow);
+            int enteredCode = rowCode(board, toRow);
+            h += rowConflicts[leftCode] - rowConflicts[leftCode + rowDigit(tile, fromRow) * rowRadix[fromCol]];
+            h += rowConflicts[enteredCode] - rowConflicts[enteredCode - rowDigit(tile, toRow) * rowRadix[toCol]];
+        }
+        return h;
+    }
+
+    @Override
+    public int value(long state) {
+        return (int) state;
+    }
+}
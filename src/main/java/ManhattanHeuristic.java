@@ -0,0 +1,51 @@
+/**
+ * 曼哈顿距离：每个方块到目标位置的行列距离之和。
+ */
+public class ManhattanHeuristic implements Heuristic {
+    private final int size;
+    private final int[] distanceTable;
+
+    public ManhattanHeuristic(int rows, int cols) {
+        this.size = rows * cols;
+        this.distanceTable = generateDistanceTable(rows, cols);
+    }
+
+    /**
+     * 以 tile * size + position 为下标的距离表，空格（tile 0）一行全为 0。
+     */
+    public static int[] generateDistanceTable(int rows, int cols) {
+        int size = rows * cols;
+        int[] table = new int[size * size];
+        for (int tile = 1; tile < size; tile++) {
+            int targetRow = (tile - 1) / cols;
+            int targetCol = (tile - 1) % cols;
+            for (int pos = 0; pos < size; pos++) {
+                table[tile * size + pos] = Math.abs(targetRow - pos / cols) + Math.abs(targetCol - pos % cols);
+            }
+        }
+        return table;
+    }
+
+    public int distance(int tile, int pos) {
+        return distanceTable[tile * size + pos];
+    }
+
+    @Override
+    public long init(int[] board) {
+        int h = 0;
+        for (int pos = 0; pos < board.length; pos++) {
+            h += distanceTable[board[pos] * size + pos];
+        }
+        return h;
+    }
+
+    @Override
+    public long update(long state, int[] board, int[] positions, int tile, int from, int to) {
+        return state - distanceTable[tile * size + from] + distanceTable[tile * size + to];
+    }
+
+    @Override
+    public int value(long state) {
+        return (int) state;
+    }
+}
@@ -0,0 +1,302 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按走子方向剪枝的有限状态机。空格的四个走向编号为 {@link #UP}、{@link #DOWN}、{@link #LEFT}、{@link #RIGHT}，
+ * 搜索从状态 0 出发，每走一步用 {@link #next} 转移，得到 {@link #PRUNED} 表示这一步之后的方向串
+ * 以某个重复串结尾，整棵子树都可以剪掉。
+ * <p>
+ * {@link #reverseOnly()} 只禁止撤销上一步；{@link #duplicates(int)} 在无边界的棋盘上枚举所有不超过给定长度的方向串，
+ * 效果相同（空格终点和方块排列都一样）的串中，保留最短、其次字典序最小的一个，其余视为重复串，
+ * 再把所有重复串建成 Aho-Corasick 自动机。只有保留串走过的格子是重复串走过格子的子集时才判重，
+ * 这样重复串能走的地方保留串一定也能走，有边界的棋盘上剪枝同样安全。
+ */
+public final class MovePruner {
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+    public static final int PRUNED = -1;
+
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+    private static final int[] REVERSE = {DOWN, UP, RIGHT, LEFT};
+    private static final char[] NAMES = {'U', 'D', 'L', 'R'};
+    private static final Map<Integer, MovePruner> CACHE = new HashMap<>();
+    private static MovePruner reverseOnly;
+
+    private final int[] transitions;
+    private final int duplicateCount;
+
+    private MovePruner(int[] transitions, int duplicateCount) {
+        this.transitions = transitions;
+        this.duplicateCount = duplicateCount;
+    }
+
+    /**
+     * 只禁止立即撤销上一步：状态 1 + d 表示上一步走向为 d。
+     */
+    public static synchronized MovePruner reverseOnly() {
+        if (reverseOnly == null) {
+            int[] transitions = new int[5 * 4];
+            for (int state = 0; state < 5; state++) {
+                for (int direction = 0; direction < 4; direction++) {
+                    boolean undo = state > 0 && REVERSE[state - 1] == direction;
+                    transitions[state * 4 + direction] = undo ? PRUNED : 1 + direction;
+                }
+            }
+            reverseOnly = new MovePruner(transitions, 4);
+        }
+        return reverseOnly;
+    }
+
+    /**
+     * 由不超过 maxLength 步的重复串生成的状态机，同一长度在进程内只生成一次。
+     */
+    public static synchronized MovePruner duplicates(int maxLength) {
+        MovePruner pruner = CACHE.get(maxLength);
+        if (pruner == null) {
+            pruner = build(findDuplicates(maxLength));
+            CACHE.put(maxLength, pruner);
+        }
+        return pruner;
+    }
+
+    public int next(int state, int direction) {
+        return transitions[state * 4 + direction];
+    }
+
+    public int getStateCount() {
+        return transitions.length / 4;
+    }
+
+    /**
+     * 生成状态机时用到的极小重复串个数（不含以更短重复串为子串的）。
+     */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * 从状态 0 出发依次走完 directions 后的状态，中途被剪掉时返回 {@link #PRUNED}。
+     */
+    public int run(int[] directions) {
+        int state = 0;
+        for (int direction : directions) {
+            state = next(state, direction);
+            if (state == PRUNED) {
+                return PRUNED;
+            }
+        }
+        return state;
+    }
+
+    public static int reverse(int direction) {
+        return REVERSE[direction];
+    }
+
+    /**
+     * 在无边界棋盘上按长度递增枚举方向串（撤销上一步的串直接算作重复串），返回极小重复串。
+     */
+    static List<int[]> findDuplicates(int maxLength) {
+        int extent = 2 * maxLength + 1;
+        Map<String, List<Candidate>> byEffect = new HashMap<>();
+        List<int[]> duplicates = new ArrayList<>();
+        for (int direction = 0; direction < 4; direction++) {
+            duplicates.add(new int[]{direction, REVERSE[direction]});
+        }
+
+        List<int[]> layer = new ArrayList<>();
+        layer.add(new int[0]);
+        for (int length = 1; length <= maxLength; length++) {
+            List<int[]> nextLayer = new ArrayList<>();
+            for (int[] prefix : layer) {
+                for (int direction = 0; direction < 4; direction++) {
+                    if (prefix.length > 0 && REVERSE[prefix[prefix.length - 1]] == direction) {
+                        continue;
+                    }
+                    int[] word = Arrays.copyOf(prefix, length);
+                    word[length - 1] = direction;
+                    if (containsAny(word, duplicates)) {
+                        continue;
+                    }
+                    Candidate candidate = simulate(word, extent);
+                    List<Candidate> group = byEffect.computeIfAbsent(candidate.effect, key -> new ArrayList<>());
+                    boolean duplicate = false;
+                    for (Candidate kept : group) {
+                        // 同组中先枚举到的串更短或字典序更小
+                        if (isSubset(kept.footprint, candidate.footprint)) {
+                            duplicate = true;
+                            break;
+                        }
+                    }
+                    if (duplicate) {
+                        duplicates.add(word);
+                    } else {
+                        group.add(candidate);
+                        nextLayer.add(word);
+                    }
+                }
+            }
+            layer = nextLayer;
+        }
+        return duplicates;
+    }
+
+    private static boolean containsAny(int[] word, List<int[]> patterns) {
+        for (int[] pattern : patterns) {
+            // 前缀里的重复串在上一层已经排除，这里只需看以最后一步结尾的
+            int start = word.length - pattern.length;
+            if (start < 0) {
+                continue;
+            }
+            boolean match = true;
+            for (int i = 0; i < pattern.length; i++) {
+                if (word[start + i] != pattern[i]) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSubset(BitSet subset, BitSet superset) {
+        BitSet remainder = (BitSet) subset.clone();
+        remainder.andNot(superset);
+        return remainder.isEmpty();
+    }
+
+    private static Candidate simulate(int[] word, int extent) {
+        int[] board = new int[extent * extent];
+        for (int i = 0; i < board.length; i++) {
+            board[i] = i;
+        }
+        int x = extent / 2;
+        int y = extent / 2;
+        BitSet footprint = new BitSet(board.length);
+        footprint.set(y * extent + x);
+        for (int direction : word) {
+            int nx = x + DX[direction];
+            int ny = y + DY[direction];
+            int from = ny * extent + nx;
+            int to = y * extent + x;
+            int tile = board[from];
+            board[from] = board[to];
+            board[to] = tile;
+            x = nx;
+            y = ny;
+            footprint.set(from);
+        }
+        // 只记录位置变了的方块，走过又被换回原处的格子不影响效果
+        StringBuilder effect = new StringBuilder().append(y * extent + x);
+        for (int cell = footprint.nextSetBit(0); cell >= 0; cell = footprint.nextSetBit(cell + 1)) {
+            if (board[cell] != cell) {
+                effect.append(',').append(cell).append(':').append(board[cell]);
+            }
+        }
+        return new Candidate(effect.toString(), footprint);
+    }
+
+    /**
+     * 以重复串为模式建 Aho-Corasick 自动机，到达任何以模式结尾的节点即为 {@link #PRUNED}。
+     */
+    private static MovePruner build(List<int[]> patterns) {
+        List<int[]> children = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        children.add(newNode());
+        terminal.add(false);
+        for (int[] pattern : patterns) {
+            int node = 0;
+            for (int direction : pattern) {
+                if (children.get(node)[direction] < 0) {
+                    children.get(node)[direction] = children.size();
+                    children.add(newNode());
+                    terminal.add(false);
+                }
+                node = children.get(node)[direction];
+            }
+            terminal.set(node, true);
+        }
+
+        int nodes = children.size();
+        int[] fail = new int[nodes];
+        int[] goTo = new int[nodes * 4];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int direction = 0; direction < 4; direction++) {
+            int child = children.get(0)[direction];
+            if (child < 0) {
+                goTo[direction] = 0;
+            } else {
+                goTo[direction] = child;
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (terminal.get(fail[node])) {
+                terminal.set(node, true);
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                int child = children.get(node)[direction];
+                if (child < 0) {
+                    goTo[node * 4 + direction] = goTo[fail[node] * 4 + direction];
+                } else {
+                    goTo[node * 4 + direction] = child;
+                    fail[child] = goTo[fail[node] * 4 + direction];
+                    queue.add(child);
+                }
+            }
+        }
+
+        // 去掉终止节点并重新编号，转移到终止节点的一律记为 PRUNED
+        int[] renumber = new int[nodes];
+        int states = 0;
+        for (int node = 0; node < nodes; node++) {
+            renumber[node] = terminal.get(node) ? PRUNED : states++;
+        }
+        int[] transitions = new int[states * 4];
+        for (int node = 0; node < nodes; node++) {
+            if (renumber[node] == PRUNED) {
+                continue;
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                transitions[renumber[node] * 4 + direction] = renumber[goTo[node * 4 + direction]];
+            }
+        }
+        return new MovePruner(transitions, patterns.size());
+    }
+
+    private static int[] newNode() {
+        int[] node = new int[4];
+        Arrays.fill(node, -1);
+        return node;
+    }
+
+    static String toString(int[] word) {
+        StringBuilder builder = new StringBuilder(word.length);
+        for (int direction : word) {
+            builder.append(NAMES[direction]);
+        }
+        return builder.toString();
+    }
+
+    private static final class Candidate {
+        final String effect;
+        final BitSet footprint;
+
+        Candidate(String effect, BitSet footprint) {
+            this.effect = effect;
+            this.footprint = footprint;
+        }
+    }
+}
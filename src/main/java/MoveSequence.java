@@ -0,0 +1,235 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * 紧凑的走法序列：只记空格的起点和每一步的走向（{@link MovePruner#UP} 等），每步 2 位，每个 long 存 32 步。
+ * 30x30 棋盘八万多步的解约 20 KB，而 List&lt;Point&gt; 每一步都是一个对象。
+ * 求解器内部仍用 "依次移入空格的方块位置"，{@link #cursor()} 边走边把走向还原成这种位置，
+ * 播放、回放和批量输出都直接消费它；需要 {@link java.awt.Point} 的地方见 {@link PuzzleSolver#toPoints}。
+ * 不可变，可以在线程间传递。
+ */
+public final class MoveSequence {
+    private static final int MOVES_PER_WORD = 32;
+
+    private final int rows;
+    private final int cols;
+    private final int startBlank;
+    private final int length;
+    private final long[] words;
+
+    private MoveSequence(int rows, int cols, int startBlank, int length, long[] words) {
+        this.rows = rows;
+        this.cols = cols;
+        this.startBlank = startBlank;
+        this.length = length;
+        this.words = words;
+    }
+
+    /**
+     * 由空格起点和依次移入空格的方块位置构造，每一步都必须与当时的空格相邻。
+     */
+    public static MoveSequence of(int rows, int cols, int startBlank, int[] moves) {
+        Builder builder = new Builder(rows, cols, startBlank, moves.length);
+        for (int move : moves) {
+            builder.accept(move);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 空格从 blank 沿 direction 走一步到达的位置，也就是这一步移入空格的方块位置。
+     */
+    public static int step(int blank, int direction, int cols) {
+        switch (direction) {
+            case MovePruner.UP:
+                return blank - cols;
+            case MovePruner.DOWN:
+                return blank + cols;
+            case MovePruner.LEFT:
+                return blank - 1;
+            default:
+                return blank + 1;
+        }
+    }
+
+    /**
+     * 相反的走向，UP 与 DOWN、LEFT 与 RIGHT 的编号只差最低位。
+     */
+    public static int reverse(int direction) {
+        return direction ^ 1;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getStartBlank() {
+        return startBlank;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int direction(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + length);
+        }
+        return (int) (words[index / MOVES_PER_WORD] >>> ((index % MOVES_PER_WORD) << 1)) & 3;
+    }
+
+    /**
+     * 从头依次给出每一步移入空格的方块位置。
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * 依次移入空格的方块位置，与求解器的输出格式相同。
+     */
+    public int[] toArray() {
+        int[] moves = new int[length];
+        Cursor cursor = cursor();
+        for (int i = 0; i < length; i++) {
+            moves[i] = cursor.nextInt();
+        }
+        return moves;
+    }
+
+    /**
+     * 在序列上前进的游标，同时跟踪空格位置。不是线程安全的，每个消费者各取一个。
+     */
+    public final class Cursor implements PrimitiveIterator.OfInt {
+        private int index;
+        private int blank = startBlank;
+
+        @Override
+        public boolean hasNext() {
+            return index < length;
+        }
+
+        /**
+         * 下一步移入空格的方块位置，返回后空格就在这个位置。
+         */
+        @Override
+        public int nextInt() {
+            if (index >= length) {
+                throw new NoSuchElementException();
+            }
+            blank = step(blank, direction(index++), cols);
+            return blank;
+        }
+
+        /**
+         * 已经走过的步数。
+         */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * 走完 {@link #index()} 步之后空格所在的位置。
+         */
+        public int blank() {
+            return blank;
+        }
+    }
+
+    /**
+     * 逐步追加构造序列。作为 {@link IntConsumer} 接收依次移入空格的方块位置，可以直接接在流式求解的输出上。
+     * 不是线程安全的，跨线程读写时由调用方加锁。
+     */
+    public static final class Builder implements IntConsumer {
+        private final int rows;
+        private final int cols;
+        private final int startBlank;
+        private int blank;
+        private int length;
+        private long[] words;
+
+        public Builder(int rows, int cols, int startBlank) {
+            this(rows, cols, startBlank, 64);
+        }
+
+        public Builder(int rows, int cols, int startBlank, int expectedLength) {
+            if (startBlank < 0 || startBlank >= rows * cols) {
+                throw new IllegalArgumentException("Blank " + startBlank + " is outside a " + rows + "x" + cols + " board");
+            }
+            this.rows = rows;
+            this.cols = cols;
+            this.startBlank = startBlank;
+            this.blank = startBlank;
+            this.words = new long[Math.max(1, (expectedLength + MOVES_PER_WORD - 1) / MOVES_PER_WORD)];
+        }
+
+        /**
+         * 追加一步，参数为移入空格的方块位置。
+         */
+        @Override
+        public void accept(int move) {
+            int direction;
+            if (move == blank - cols && blank >= cols) {
+                direction = MovePruner.UP;
+            } else if (move == blank + cols && move < rows * cols) {
+                direction = MovePruner.DOWN;
+            } else if (move == blank - 1 && blank % cols > 0) {
+                direction = MovePruner.LEFT;
+            } else if (move == blank + 1 && move % cols > 0) {
+                direction = MovePruner.RIGHT;
+            } else {
+                throw new IllegalArgumentException("Cell " + move + " is not next to the blank at " + blank);
+            }
+            appendDirection(direction);
+        }
+
+        /**
+         * 追加一步，参数为空格的走向，不检查是否越出棋盘。
+         */
+        public Builder appendDirection(int direction) {
+            if (length == words.length * MOVES_PER_WORD) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            words[length / MOVES_PER_WORD] |= (long) direction << ((length % MOVES_PER_WORD) << 1);
+            length++;
+            blank = step(blank, direction, cols);
+            return this;
+        }
+
+        /**
+         * 撤掉最后一步，空格退回上一步之前的位置。
+         */
+        public Builder removeLast() {
+            if (length == 0) {
+                throw new NoSuchElementException();
+            }
+            int direction = direction(length - 1);
+            length--;
+            words[length / MOVES_PER_WORD] &= ~(3L << ((length % MOVES_PER_WORD) << 1));
+            blank = step(blank, reverse(direction), cols);
+            return this;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public int direction(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Move " + index + " of " + length);
+            }
+            return (int) (words[index / MOVES_PER_WORD] >>> ((index % MOVES_PER_WORD) << 1)) & 3;
+        }
+
+        public MoveSequence build() {
+            return new MoveSequence(rows, cols, startBlank, length,
+                    Arrays.copyOf(words, (length + MOVES_PER_WORD - 1) / MOVES_PER_WORD));
+        }
+    }
+}
@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 并行 IDA*：先把搜索树展开到较浅的深度得到一批子树，每一轮阈值迭代把这些子树交给
+ * ForkJoinPool 以工作窃取方式执行。任何一个工作线程找到解后置位共享标志，其余线程随即停止。
+ * 每轮都在同一阈值下完整搜索，前一轮已证明不存在更短的解，因此结果仍然最优。
+ */
+public class ParallelIdaStarSearch {
+    private static final int ITEMS_PER_THREAD = 32;
+
+    private final int rows;
+    private final int cols;
+    private final Heuristic heuristic;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<IdaStarSearch> workers;
+    private final LongAdder nodesExpanded = new LongAdder();
+    private long elapsedNanos;
+    private int iterations;
+    private BooleanSupplier stopCondition = () -> false;
+    private SolveProgressListener progressListener;
+    private MovePruner pruner = MovePruner.reverseOnly();
+    private long tableBytesPerWorker;
+    private final List<TranspositionTable> tables = new CopyOnWriteArrayList<>();
+
+    public ParallelIdaStarSearch(int rows, int cols, Heuristic heuristic, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.heuristic = heuristic;
+        this.parallelism = parallelism;
+        this.pool = new ForkJoinPool(parallelism);
+        this.workers = ThreadLocal.withInitial(() -> {
+            IdaStarSearch search = new IdaStarSearch(rows, cols, heuristic);
+            search.setMovePruner(pruner);
+            if (tableBytesPerWorker > 0) {
+                TranspositionTable table = new TranspositionTable(tableBytesPerWorker);
+                tables.add(table);
+                search.setTranspositionTable(table);
+            }
+            return search;
+        });
+    }
+
+    /**
+     * 求解给定棋盘，返回依次移入空格的方块位置，无解或被停止时返回 null。
+     */
+    public int[] solve(int[] state) {
+        nodesExpanded.reset();
+        iterations = 0;
+        long start = System.nanoTime();
+        try {
+            int threshold = heuristic.estimate(state);
+            List<WorkItem> items = split(state, threshold);
+            if (items == null) {
+                IdaStarSearch search = new IdaStarSearch(rows, cols, heuristic);
+                search.setMovePruner(pruner);
+                if (tableBytesPerWorker > 0) {
+                    TranspositionTable table = new TranspositionTable(tableBytesPerWorker * parallelism);
+                    tables.add(table);
+                    search.setTranspositionTable(table);
+                }
+                search.setStopCondition(stopCondition);
+                search.setProgressListener(progressListener);
+                int[] moves = search.solve(state);
+                nodesExpanded.add(search.getNodesExpanded());
+                iterations = search.getIterations();
+                return moves;
+            }
+            while (true) {
+                iterations++;
+                if (progressListener != null) {
+                    progressListener.onProgress(threshold, nodesExpanded.sum());
+                }
+                Iteration iteration = new Iteration(items, threshold, stopCondition);
+                pool.invoke(new IterationTask(iteration, 0, items.size()));
+                int[] solution = iteration.solution.get();
+                if (solution != null) {
+                    return solution;
+                }
+                if (stopCondition.getAsBoolean()) {
+                    return null;
+                }
+                int next = iteration.nextThreshold.get();
+                if (next == Integer.MAX_VALUE) {
+                    return null;
+                }
+                threshold = next;
+            }
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * 逐层展开直到子树数量足够分给所有线程。展开深度不超过根节点估值，
+     * 因而最优解不可能位于展开层之上，不会被漏掉。子树太少时返回 null，改用顺序搜索。
+     */
+    private List<WorkItem> split(int[] state, int rootEstimate) {
+        int target = parallelism * ITEMS_PER_THREAD;
+        List<WorkItem> frontier = new ArrayList<>();
+        frontier.add(new WorkItem(state.clone(), new int[0], 0, 0));
+        for (int depth = 0; depth < rootEstimate && frontier.size() < target; depth++) {
+            List<WorkItem> expanded = new ArrayList<>(frontier.size() * 3);
+            for (WorkItem item : frontier) {
+                int f = depth + heuristic.estimate(item.board);
+                int bound = Math.max(item.ancestorBound, f);
+                int blank = indexOf(item.board, 0);
+                int row = blank / cols;
+                int col = blank % cols;
+                if (row > 0) addChild(expanded, item, blank, blank - cols, MovePruner.UP, bound);
+                if (row < rows - 1) addChild(expanded, item, blank, blank + cols, MovePruner.DOWN, bound);
+                if (col > 0) addChild(expanded, item, blank, blank - 1, MovePruner.LEFT, bound);
+                if (col < cols - 1) addChild(expanded, item, blank, blank + 1, MovePruner.RIGHT, bound);
+            }
+            frontier = expanded;
+        }
+        return frontier.size() < parallelism * 2 ? null : frontier;
+    }
+
+    private void addChild(List<WorkItem> expanded, WorkItem item, int blank, int next, int direction, int bound) {
+        int nextState = pruner.next(item.pruneState, direction);
+        if (nextState != MovePruner.PRUNED) {
+            expanded.add(item.child(blank, next, nextState, bound));
+        }
+    }
+
+    private static int indexOf(int[] board, int tile) {
+        for (int pos = 0; pos < board.length; pos++) {
+            if (board[pos] == tile) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 外部停止条件（取消或超时），各工作线程每隔若干节点检查一次。
+     */
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition == null ? () -> false : stopCondition;
+    }
+
+    /**
+     * 每轮迭代开始时回调一次进度，节点数为所有线程之和。
+     */
+    public void setProgressListener(SolveProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * 走子剪枝的状态机，展开子树和各工作线程共用。须在 {@link #solve} 之前设置。
+     */
+    public void setMovePruner(MovePruner pruner) {
+        this.pruner = pruner == null ? MovePruner.reverseOnly() : pruner;
+    }
+
+    /**
+     * 置换表内存上限，平均分给各工作线程，每个线程一张私有的表。0 表示不用置换表。须在 {@link #solve} 之前设置。
+     */
+    public void setTranspositionTableBytes(long bytes) {
+        this.tableBytesPerWorker = bytes / parallelism;
+    }
+
+    /**
+     * 本次求解中各工作线程使用的置换表。
+     */
+    public List<TranspositionTable> getTranspositionTables() {
+        return tables;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getNodesExpanded() {
+        return nodesExpanded.sum();
+    }
+
+    public long getHeuristicEvaluations() {
+        return getNodesExpanded();
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getNodesExpanded() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    private static final class WorkItem {
+        final int[] board;
+        final int[] prefix;
+        /** 展开路径上祖先节点的最大 f 值，超过阈值时整棵子树本轮不必搜索 */
+        final int ancestorBound;
+        /** 走到该子树根的方向串在剪枝状态机中的状态 */
+        final int pruneState;
+
+        WorkItem(int[] board, int[] prefix, int ancestorBound, int pruneState) {
+            this.board = board;
+            this.prefix = prefix;
+            this.ancestorBound = ancestorBound;
+            this.pruneState = pruneState;
+        }
+
+        WorkItem child(int blank, int next, int nextState, int bound) {
+            int[] childBoard = board.clone();
+            childBoard[blank] = childBoard[next];
+            childBoard[next] = 0;
+            int[] childPrefix = Arrays.copyOf(prefix, prefix.length + 1);
+            childPrefix[prefix.length] = next;
+            return new WorkItem(childBoard, childPrefix, bound, nextState);
+        }
+    }
+
+    private static final class Iteration {
+        final List<WorkItem> items;
+        final int threshold;
+        final AtomicBoolean solved = new AtomicBoolean();
+        final AtomicReference<int[]> solution = new AtomicReference<>();
+        final AtomicInteger nextThreshold = new AtomicInteger(Integer.MAX_VALUE);
+        final BooleanSupplier stop;
+
+        Iteration(List<WorkItem> items, int threshold, BooleanSupplier external) {
+            this.items = items;
+            this.threshold = threshold;
+            this.stop = () -> solved.get() || external.getAsBoolean();
+        }
+    }
+
+    private final class IterationTask extends RecursiveAction {
+        private final Iteration iteration;
+        private final int from;
+        private final int to;
+
+        IterationTask(Iteration iteration, int from, int to) {
+            this.iteration = iteration;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (iteration.stop.getAsBoolean()) {
+                return;
+            }
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new IterationTask(iteration, from, middle), new IterationTask(iteration, middle, to));
+                return;
+            }
+            WorkItem item = iteration.items.get(from);
+            if (item.ancestorBound > iteration.threshold) {
+                iteration.nextThreshold.accumulateAndGet(item.ancestorBound, Math::min);
+                return;
+            }
+            IdaStarSearch search = workers.get();
+            search.setStopCondition(iteration.stop);
+            long before = search.getNodesExpanded();
+            int depth = item.prefix.length;
+            int result = search.searchIteration(item.board, depth, iteration.threshold, item.pruneState);
+            nodesExpanded.add(search.getNodesExpanded() - before);
+            if (result == IdaStarSearch.FOUND) {
+                int[] suffix = search.getSolutionFrom(depth);
+                int[] moves = Arrays.copyOf(item.prefix, depth + suffix.length);
+                System.arraycopy(suffix, 0, moves, depth, suffix.length);
+                if (iteration.solution.compareAndSet(null, moves)) {
+                    iteration.solved.set(true);
+                }
+            } else if (result != IdaStarSearch.STOPPED) {
+                iteration.nextThreshold.accumulateAndGet(result, Math::min);
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单个模式（一组方块）的模式数据库。
+ * 只区分模式内方块，其余方块视为空白：空格在其连通区域内移动不计代价，每移动一个模式内方块代价为 1。
+ * 从目标状态反向逐层广度优先搜索，取各空格区域中的最小步数，以 byte 表紧凑存储。
+ * 每一层的展开按访问标记数组分段交给 ForkJoinPool 并行执行，标记用原子操作更新，不加锁；
+ * 标记每个状态 2 位，5x5 的 6 方块模式约需 600 MB 标记加 128 MB 的表，可在 1 GB 堆内构建。
+ * 多个互不相交的模式的估值可以直接相加，仍然是可采纳的。
+ */
+public class PatternDatabase {
+    private static final byte UNVISITED = -1;
+    private static final int RESET = 0;
+    private static final int ADVANCE = 1;
+    private static final int EXPAND = 2;
+    /** 每个任务至少处理的字数，再小就不值得拆给其他线程 */
+    private static final int WORDS_PER_TASK = 1 << 12;
+    private static final long LOW_BITS = 0x5555555555555555L;
+    private static final long HIGH_BITS = 0xAAAAAAAAAAAAAAAAL;
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final int[] tiles;
+    private final int[] weights;
+    private final int entryCount;
+    private final int freeCells;
+    private final int parallelism;
+    private final ByteBuffer table;
+    private final long boardMask;
+    private final long notFirstColumn;
+    private final long notLastColumn;
+    private final long[] neighborMasks;
+
+    /**
+     * @param tiles 模式包含的方块编号（1..rows*cols-1，目标位置为 tile - 1）
+     */
+    public PatternDatabase(int rows, int cols, int[] tiles) {
+        this(rows, cols, tiles, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism 构建时使用的线程数
+     */
+    public PatternDatabase(int rows, int cols, int[] tiles, int parallelism) {
+        this(rows, cols, tiles, null, parallelism);
+    }
+
+    private PatternDatabase(int rows, int cols, int[] tiles, ByteBuffer table, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.size = rows * cols;
+        this.tiles = tiles.clone();
+        this.weights = new int[tiles.length];
+        long entries = 1;
+        for (int i = tiles.length - 1; i >= 0; i--) {
+            if (entries > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Pattern too large: " + Arrays.toString(tiles));
+            }
+            weights[i] = (int) entries;
+            entries *= size - i;
+        }
+        if (entries > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern too large: " + Arrays.toString(tiles));
+        }
+        if (size > 64) {
+            throw new IllegalArgumentException("Board too large for pattern database: " + rows + "x" + cols);
+        }
+        this.entryCount = (int) entries;
+        this.freeCells = size - tiles.length;
+        this.parallelism = parallelism;
+        this.boardMask = size == 64 ? -1L : (1L << size) - 1;
+        long firstColumn = 0L;
+        long lastColumn = 0L;
+        for (int row = 0; row < rows; row++) {
+            firstColumn |= 1L << (row * cols);
+            lastColumn |= 1L << (row * cols + cols - 1);
+        }
+        this.notFirstColumn = boardMask & ~firstColumn;
+        this.notLastColumn = boardMask & ~lastColumn;
+        this.neighborMasks = new long[size];
+        for (int pos = 0; pos < size; pos++) {
+            int row = pos / cols;
+            int col = pos % cols;
+            if (row > 0) neighborMasks[pos] |= 1L << (pos - cols);
+            if (row < rows - 1) neighborMasks[pos] |= 1L << (pos + cols);
+            if (col > 0) neighborMasks[pos] |= 1L << (pos - 1);
+            if (col < cols - 1) neighborMasks[pos] |= 1L << (pos + 1);
+        }
+        if (table == null) {
+            byte[] distances = new byte[entryCount];
+            build(distances);
+            table = ByteBuffer.wrap(distances);
+        } else if (table.capacity() != entryCount) {
+            throw new IllegalArgumentException("Expected " + entryCount + " entries but got " + table.capacity());
+        }
+        this.table = table;
+    }
+
+    /**
+     * 直接在已有的表（例如内存映射的文件）上建立模式数据库，不重新构建。
+     */
+    public static PatternDatabase wrap(int rows, int cols, int[] tiles, ByteBuffer table) {
+        return new PatternDatabase(rows, cols, tiles, table, 1);
+    }
+
+    /**
+     * @param positions 以方块编号为下标的当前位置数组
+     */
+    public int getDistance(int[] positions) {
+        return table.get(index(positions));
+    }
+
+    public int[] getTiles() {
+        return tiles.clone();
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * 返回只读的表视图，位置从 0 开始。
+     */
+    public ByteBuffer getTable() {
+        ByteBuffer view = table.asReadOnlyBuffer();
+        view.clear();
+        return view;
+    }
+
+    private int index(int[] positions) {
+        int index = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            int pos = positions[tiles[i]];
+            int rank = pos;
+            for (int j = 0; j < i; j++) {
+                if (positions[tiles[j]] < pos) {
+                    rank--;
+                }
+            }
+            index += rank * weights[i];
+        }
+        return index;
+    }
+
+    private void build(byte[] distances) {
+        int[] goalPositions = new int[size];
+        long occupiedAtGoal = 0L;
+        for (int tile : tiles) {
+            goalPositions[tile] = tile - 1;
+            occupiedAtGoal |= 1L << (tile - 1);
+        }
+        Arrays.fill(distances, UNVISITED);
+        int goalIndex = index(goalPositions);
+        distances[goalIndex] = 0;
+
+        // 每个 (模式位置, 空格所在连通区域) 占 2 位：关闭、当前层、下一层、未访问。
+        // 区域以其编号最小的空闲格在空闲格中的序号表示，只有 size - k 种取值
+        long slots = (long) distances.length * freeCells;
+        if (((slots + 31) >>> 5) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern too large: " + Arrays.toString(tiles));
+        }
+        AtomicLongArray visited = new AtomicLongArray((int) ((slots + 31) >>> 5));
+        long free = boardMask & ~occupiedAtGoal;
+        long goalRegion = flood(1L << (size - 1), free);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new LevelTask(visited, distances, RESET, (byte) 0, 0, visited.length()));
+            mark(visited, (long) goalIndex * freeCells + regionRank(goalRegion, free));
+            // 标记为下一层后推进一次，目标状态成为第 0 层的当前层
+            pool.invoke(new LevelTask(visited, distances, ADVANCE, (byte) 0, 0, visited.length()));
+            for (int depth = 0; ; depth++) {
+                long discovered = pool.invoke(
+                        new LevelTask(visited, distances, EXPAND, (byte) (depth + 1), 0, visited.length()));
+                if (discovered == 0) {
+                    break;
+                }
+                pool.invoke(new LevelTask(visited, distances, ADVANCE, (byte) 0, 0, visited.length()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 对 visited 的一段字执行一层中的一步：RESET 全部置为未访问，ADVANCE 整字推进到下一层，
+     * EXPAND 展开其中的当前层状态并返回新发现的状态数。段太长时对半拆开交给其他线程。
+     */
+    private final class LevelTask extends RecursiveTask<Long> {
+        private final AtomicLongArray visited;
+        private final byte[] distances;
+        private final int mode;
+        private final byte depth;
+        private final int from;
+        private final int to;
+
+        LevelTask(AtomicLongArray visited, byte[] distances, int mode, byte depth, int from, int to) {
+            this.visited = visited;
+            this.distances = distances;
+            this.mode = mode;
+            this.depth = depth;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > WORDS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                LevelTask right = new LevelTask(visited, distances, mode, depth, middle, to);
+                right.fork();
+                long left = new LevelTask(visited, distances, mode, depth, from, middle).compute();
+                return left + right.join();
+            }
+            if (mode != EXPAND) {
+                for (int w = from; w < to; w++) {
+                    visited.set(w, mode == RESET ? -1L : advance(visited.get(w)));
+                }
+                return 0L;
+            }
+            int[] pos = new int[tiles.length];
+            int[] sorted = new int[tiles.length];
+            int[] ranks = new int[tiles.length];
+            long discovered = 0;
+            for (int w = from; w < to; w++) {
+                // 本层中当前层的位不会被改写，其他线程只会把未访问改为下一层，读到的旧值或新值都不是当前层
+                long word = visited.get(w);
+                long current = word & ~(word >>> 1) & LOW_BITS;
+                while (current != 0) {
+                    int bit = Long.numberOfTrailingZeros(current);
+                    current &= current - 1;
+                    long slot = ((long) w << 5) + (bit >>> 1);
+                    discovered += expand(distances, slot, visited, depth, pos, sorted, ranks);
+                }
+            }
+            return discovered;
+        }
+    }
+
+    /**
+     * 展开一个状态：空格可以在其连通区域内零代价移动，与该区域相邻的模式方块移入区域代价为 1。
+     */
+    private int expand(byte[] distances, long slot, AtomicLongArray visited, byte depth,
+                       int[] pos, int[] sorted, int[] ranks) {
+        int index = (int) (slot / freeCells);
+        int regionRank = (int) (slot % freeCells);
+        unrank(index, pos, sorted);
+        long occupied = 0L;
+        for (int i = 0; i < pos.length; i++) {
+            occupied |= 1L << pos[i];
+            ranks[i] = pos[i];
+            for (int j = 0; j < i; j++) {
+                if (pos[j] < pos[i]) {
+                    ranks[i]--;
+                }
+            }
+        }
+        long free = boardMask & ~occupied;
+        long blank = free;
+        for (int i = 0; i < regionRank; i++) {
+            blank &= blank - 1;
+        }
+        long region = flood(Long.lowestOneBit(blank), free);
+        int discovered = 0;
+        for (int i = 0; i < pos.length; i++) {
+            int from = pos[i];
+            long targets = neighborMasks[from] & region;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int target = movedIndex(index, pos, ranks, i, from, to);
+                long movedFree = (free & ~(1L << to)) | (1L << from);
+                long movedRegion = flood(1L << from, movedFree);
+                if (mark(visited, (long) target * freeCells + regionRank(movedRegion, movedFree))) {
+                    // 同一层里各线程写入的都是同一个深度，先后无关
+                    if (distances[target] == UNVISITED) {
+                        distances[target] = depth;
+                    }
+                    discovered++;
+                }
+            }
+        }
+        return discovered;
+    }
+
+    /**
+     * 区域中编号最小的格子在全部空闲格中的序号。
+     */
+    private static int regionRank(long region, long free) {
+        return Long.bitCount(free & (Long.lowestOneBit(region) - 1));
+    }
+
+    private long flood(long seed, long free) {
+        long region = seed;
+        while (true) {
+            long grown = region
+                    | (region << cols)
+                    | (region >>> cols)
+                    | ((region & notLastColumn) << 1)
+                    | ((region & notFirstColumn) >>> 1);
+            grown &= free;
+            grown |= seed;
+            if (grown == region) {
+                return region;
+            }
+            region = grown;
+        }
+    }
+
+    /**
+     * 把未访问的位置原子地标为下一层，已访问过（包括正在展开的当前层）时返回 false。
+     */
+    private static boolean mark(AtomicLongArray visited, long slot) {
+        int index = (int) (slot >>> 5);
+        int shift = (int) ((slot & 31) << 1);
+        long unvisited = 3L << shift;
+        while (true) {
+            long word = visited.get(index);
+            if ((word & unvisited) != unvisited) {
+                return false;
+            }
+            if (visited.compareAndSet(index, word, word & ~(1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 一层结束后整字推进：当前层变为关闭，下一层变为当前层，未访问保持不变。
+     */
+    private static long advance(long word) {
+        long high = word & HIGH_BITS;
+        long low = word & LOW_BITS;
+        return (high & (low << 1)) | (high >>> 1);
+    }
+
+    /**
+     * 模式中第 i 个方块从 from 移到 to 后的下标，只需 O(k) 调整后续方块的秩。
+     */
+    private int movedIndex(int index, int[] pos, int[] ranks, int i, int from, int to) {
+        int rank = to;
+        for (int j = 0; j < i; j++) {
+            if (pos[j] < to) {
+                rank--;
+            }
+        }
+        index += (rank - ranks[i]) * weights[i];
+        for (int j = i + 1; j < pos.length; j++) {
+            if (from < pos[j] && to > pos[j]) {
+                index += weights[j];
+            } else if (from > pos[j] && to < pos[j]) {
+                index -= weights[j];
+            }
+        }
+        return index;
+    }
+
+    private void unrank(int index, int[] pos, int[] sorted) {
+        int k = tiles.length;
+        for (int i = 0; i < k; i++) {
+            int rank = index / weights[i];
+            index -= rank * weights[i];
+            // 在尚未占用的格子中取第 rank 个
+            int p = rank;
+            for (int j = 0; j < i; j++) {
+                if (sorted[j] <= p) {
+                    p++;
+                } else {
+                    break;
+                }
+            }
+            pos[i] = p;
+            int slot = i;
+            for (; slot > 0 && sorted[slot - 1] > p; slot--) {
+                sorted[slot] = sorted[slot - 1];
+            }
+            sorted[slot] = p;
+        }
+    }
+}
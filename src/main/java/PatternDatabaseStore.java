@@ -0,0 +1,159 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 模式数据库的磁盘存储。每个模式一个文件，通过 FileChannel.map 只读映射，
+ * 查表直接读取映射区，不占用堆内存；文件缺失或版本不符时构建一次并写回磁盘。
+ *
+ * 文件格式（大端）：
+ * <pre>
+ * int    MAGIC ("PPDB")
+ * int    VERSION
+ * int    rows, cols
+ * int    tileCount, tiles[tileCount]
+ * int    entryCount
+ * byte[] entries
+ * </pre>
+ */
+public class PatternDatabaseStore {
+    private static final int MAGIC = 0x50504442;
+    private static final int VERSION = 1;
+
+    private final Path directory;
+
+    public PatternDatabaseStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 默认目录为 ~/.puzzle_game/pdb，可用系统属性 puzzle.pdb.dir 覆盖。
+     */
+    public static PatternDatabaseStore getDefault() {
+        String dir = System.getProperty("puzzle.pdb.dir",
+                System.getProperty("user.home") + File.separator + ".puzzle_game" + File.separator + "pdb");
+        return new PatternDatabaseStore(new File(dir).toPath());
+    }
+
+    /**
+     * 映射已有的数据库文件；缺失或无效时构建并写出。写入失败时退回到内存中的表。
+     */
+    public PatternDatabase load(int rows, int cols, int[] tiles) {
+        Path file = fileFor(rows, cols, tiles);
+        try {
+            PatternDatabase mapped = map(file, rows, cols, tiles);
+            if (mapped != null) {
+                return mapped;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to map pattern database " + file + ": " + e.getMessage());
+        }
+
+        PatternDatabase built = new PatternDatabase(rows, cols, tiles);
+        try {
+            write(file, built);
+            PatternDatabase mapped = map(file, rows, cols, tiles);
+            if (mapped != null) {
+                return mapped;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write pattern database " + file + ": " + e.getMessage());
+        }
+        return built;
+    }
+
+    public Path fileFor(int rows, int cols, int[] tiles) {
+        StringBuilder name = new StringBuilder("pdb-").append(rows).append('x').append(cols);
+        for (int tile : tiles) {
+            name.append('-').append(tile);
+        }
+        return directory.resolve(name.append(".bin").toString());
+    }
+
+    private PatternDatabase map(Path file, int rows, int cols, int[] tiles) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int headerSize = headerSize(tiles.length);
+            if (channel.size() < headerSize) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.BIG_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    return null;
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getInt() != rows || header.getInt() != cols
+                    || header.getInt() != tiles.length) {
+                return null;
+            }
+            int[] storedTiles = new int[tiles.length];
+            for (int i = 0; i < storedTiles.length; i++) {
+                storedTiles[i] = header.getInt();
+            }
+            int entryCount = header.getInt();
+            if (!Arrays.equals(storedTiles, tiles) || channel.size() != (long) headerSize + entryCount) {
+                return null;
+            }
+            // 映射在通道关闭后仍然有效
+            MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, headerSize, entryCount);
+            try {
+                return PatternDatabase.wrap(rows, cols, tiles, entries);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private void write(Path file, PatternDatabase database) throws IOException {
+        Files.createDirectories(directory);
+        int[] tiles = database.getTiles();
+        ByteBuffer header = ByteBuffer.allocate(headerSize(tiles.length)).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION)
+                .putInt(database.getRows()).putInt(database.getCols())
+                .putInt(tiles.length);
+        for (int tile : tiles) {
+            header.putInt(tile);
+        }
+        header.putInt(database.getEntryCount());
+        header.flip();
+
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer entries = database.getTable();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (entries.hasRemaining()) {
+                    channel.write(entries);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int headerSize(int tileCount) {
+        return 4 * (6 + tileCount);
+    }
+}
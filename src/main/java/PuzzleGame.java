@@ -40,6 +40,8 @@ public class PuzzleGame extends JFrame {
         getContentPane().setBackground(new Color(245, 245, 245));
 
         loadImage("/images/piggy-bank-9070156_1280.jpg");
+        EightPuzzleTable.prefetch();
+        SolutionCache.prefetch();
         
         gamePanel = new GamePanel(this, resizedImage, rows, cols);
         gamePanel.setStandardMode(true);
@@ -109,10 +111,18 @@ public class PuzzleGame extends JFrame {
         gamePanel.randomizePuzzle();
     }
 
+    public void dealPuzzle(DifficultyBand band) {
+        gamePanel.dealPuzzle(band);
+    }
+
     public void solvePuzzle() {
         gamePanel.solvePuzzle();
     }
 
+    public void showHint() {
+        gamePanel.showHint();
+    }
+
     public boolean isPuzzleSolved() {
         return gamePanel.isPuzzleSolved();
     }
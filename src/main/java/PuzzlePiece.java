@@ -1,9 +1,12 @@
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Point;
 import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
 
@@ -15,6 +18,9 @@ public class PuzzlePiece {
     private final int correctRow, correctCol;
     private final int width, height;
     private static final int CORNER_RADIUS = 10; // 圆角半径
+    private static final BasicStroke BORDER = new BasicStroke(1);
+    private BufferedImage rendered; // 烘焙好圆角和边框的图块
+    private GraphicsConfiguration renderedFor;
 
     public PuzzlePiece(BufferedImage image, int correctX, int correctY, int width, int height, int col, int row) {
         this.image = image;
@@ -30,27 +36,43 @@ public class PuzzlePiece {
         this.y = row * height;
     }
 
+    /**
+     * 每帧只是贴一张图：圆角和边框在第一次绘制时烘焙进与屏幕兼容的半透明图像，之后直接复用。
+     * 图像和尺寸不会改变，只有换到另一块屏幕（设备配置不同）时才重新生成。
+     */
     public void draw(Graphics g) {
         if (image != null) {
-            Graphics2D g2d = (Graphics2D) g.create();
+            GraphicsConfiguration config = ((Graphics2D) g).getDeviceConfiguration();
+            if (rendered == null || renderedFor != config) {
+                rendered = render(config);
+                renderedFor = config;
+            }
+            g.drawImage(rendered, x, y, null);
+        }
+    }
+
+    private BufferedImage render(GraphicsConfiguration config) {
+        BufferedImage tile = config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        Graphics2D g2d = tile.createGraphics();
+        try {
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            
-            // 创建圆角矩形
-            RoundRectangle2D roundedRectangle = new RoundRectangle2D.Float(x, y, width, height, CORNER_RADIUS, CORNER_RADIUS);
-            
-            // 设置裁剪区域为圆角矩形
-            g2d.setClip(roundedRectangle);
-            
-            // 绘制图像
-            g2d.drawImage(image, x, y, null);
-            
+
+            // 先画出圆角遮罩，再只在遮罩内绘制图像，边缘是抗锯齿的半透明像素而不是硬裁剪
+            g2d.setComposite(AlphaComposite.Src);
+            g2d.setColor(Color.WHITE);
+            g2d.fill(new RoundRectangle2D.Float(0, 0, width, height, CORNER_RADIUS, CORNER_RADIUS));
+            g2d.setComposite(AlphaComposite.SrcIn);
+            g2d.drawImage(image, 0, 0, null);
+
             // 绘制边框
+            g2d.setComposite(AlphaComposite.SrcOver);
             g2d.setColor(Color.GRAY);
-            g2d.setStroke(new BasicStroke(1));
-            g2d.draw(roundedRectangle);
-            
+            g2d.setStroke(BORDER);
+            g2d.draw(new RoundRectangle2D.Float(0.5f, 0.5f, width - 1, height - 1, CORNER_RADIUS, CORNER_RADIUS));
+        } finally {
             g2d.dispose();
         }
+        return tile;
     }
 
     public boolean contains(Point p) {
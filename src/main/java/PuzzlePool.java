@@ -0,0 +1,237 @@
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按 {@link DifficultyBand} 分档、预先求出最优解的棋盘池。
+ * 每个尺寸的每一档各保留若干个棋盘，{@link #take} 只是从队列里取一个，可以在 EDT 上调用；
+ * 取走后由低优先级的后台线程补满。较难一档直接用 {@link BoardShuffler} 均匀打乱，
+ * 较易的档从目标局面随机走若干步，走的步数按求得的最优步数自动调整，使结果大多落在档内；
+ * 生成的棋盘落到哪一档就放进哪一档，放满的档丢弃。只支持划分了难度的尺寸，见 {@link DifficultyBand}。
+ */
+public final class PuzzlePool {
+    private static final int DEFAULT_CAPACITY = 8;
+    /** 单个棋盘求最优解的时限，超时的棋盘丢弃，换一个再试 */
+    private static final long SOLVE_BUDGET_MILLIS = 10_000;
+    /** 连续这么多个棋盘都没能放进池时暂停补充，等下次取用再试，避免某一档始终凑不满时空转 */
+    private static final int MAX_FRUITLESS_ATTEMPTS = 64;
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                Thread thread = new Thread(runnable, "puzzle-pool");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+    private static PuzzlePool defaultPool;
+
+    private final int capacity;
+    private final Map<Long, SizePool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacity 每个尺寸每一档保留的棋盘数
+     */
+    public PuzzlePool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public static synchronized PuzzlePool getDefault() {
+        if (defaultPool == null) {
+            defaultPool = new PuzzlePool(DEFAULT_CAPACITY);
+        }
+        return defaultPool;
+    }
+
+    public static boolean supports(int rows, int cols) {
+        return rows >= 2 && cols >= 2 && DifficultyBand.isCalibrated(rows, cols);
+    }
+
+    /**
+     * 在后台开始生成该尺寸的棋盘，不支持的尺寸什么也不做。
+     */
+    public void prefetch(int rows, int cols) {
+        if (supports(rows, cols)) {
+            pool(rows, cols).refill();
+        }
+    }
+
+    /**
+     * 取一个最优解步数落在 band 内的棋盘，池中暂时没有或尺寸不支持时返回 null。不阻塞。
+     */
+    public CalibratedBoard take(int rows, int cols, DifficultyBand band) {
+        if (!supports(rows, cols)) {
+            return null;
+        }
+        SizePool pool = pool(rows, cols);
+        CalibratedBoard board = pool.boards.get(band).poll();
+        if (board != null) {
+            pool.counts.get(band).decrementAndGet();
+        }
+        pool.refill();
+        return board;
+    }
+
+    /**
+     * 池中该档现有的棋盘数。
+     */
+    public int available(int rows, int cols, DifficultyBand band) {
+        SizePool pool = supports(rows, cols) ? pools.get(key(rows, cols)) : null;
+        return pool == null ? 0 : pool.counts.get(band).get();
+    }
+
+    private SizePool pool(int rows, int cols) {
+        return pools.computeIfAbsent(key(rows, cols), key -> new SizePool(rows, cols));
+    }
+
+    private static long key(int rows, int cols) {
+        return (long) rows << 32 | cols;
+    }
+
+    /**
+     * 一个尺寸的各档队列。同一时刻至多一个后台任务在补充它，求解器和随机数只由这个任务使用。
+     */
+    private final class SizePool implements Runnable {
+        final int rows;
+        final int cols;
+        final Map<DifficultyBand, Queue<CalibratedBoard>> boards = new EnumMap<>(DifficultyBand.class);
+        final Map<DifficultyBand, AtomicInteger> counts = new EnumMap<>(DifficultyBand.class);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final Map<DifficultyBand, Integer> walkLengths = new EnumMap<>(DifficultyBand.class);
+        final SplittableRandom random = new SplittableRandom();
+        final BoardSolver solver;
+        final int[][] neighbors;
+
+        SizePool(int rows, int cols) {
+            this.rows = rows;
+            this.cols = cols;
+            for (DifficultyBand band : DifficultyBand.values()) {
+                boards.put(band, new ConcurrentLinkedQueue<>());
+                counts.put(band, new AtomicInteger());
+                walkLengths.put(band, band.maxLength(rows, cols));
+            }
+            solver = new BoardSolver(rows, cols);
+            solver.setParallelism(1);
+            solver.setSolutionCache(null);
+            solver.setMetrics(null);
+            neighbors = new int[rows * cols][];
+            for (int pos = 0; pos < neighbors.length; pos++) {
+                int[] buffer = new int[4];
+                int count = 0;
+                if (pos >= cols) buffer[count++] = pos - cols;
+                if (pos < neighbors.length - cols) buffer[count++] = pos + cols;
+                if (pos % cols > 0) buffer[count++] = pos - 1;
+                if (pos % cols < cols - 1) buffer[count++] = pos + 1;
+                neighbors[pos] = Arrays.copyOf(buffer, count);
+            }
+        }
+
+        void refill() {
+            if (neediest() != null && scheduled.compareAndSet(false, true)) {
+                EXECUTOR.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                DifficultyBand band;
+                int fruitless = 0;
+                while ((band = neediest()) != null && fruitless < MAX_FRUITLESS_ATTEMPTS) {
+                    fruitless = generate(band) ? 0 : fruitless + 1;
+                }
+                if (band != null) {
+                    scheduled.set(false);
+                    return;
+                }
+            } catch (RuntimeException | OutOfMemoryError e) {
+                System.err.println("Failed to fill " + rows + "x" + cols + " puzzle pool: " + e);
+                scheduled.set(false);
+                return;
+            }
+            scheduled.set(false);
+            // 检查完到清除标记之间被取走的棋盘
+            refill();
+        }
+
+        /**
+         * 最缺棋盘的一档，都满时返回 null。
+         */
+        private DifficultyBand neediest() {
+            DifficultyBand neediest = null;
+            int fewest = capacity;
+            for (DifficultyBand band : DifficultyBand.values()) {
+                int count = counts.get(band).get();
+                if (count < fewest) {
+                    neediest = band;
+                    fewest = count;
+                }
+            }
+            return neediest;
+        }
+
+        /**
+         * 生成并求解一个棋盘，放进池中时返回 true。
+         */
+        private boolean generate(DifficultyBand band) {
+            int[] state = band == DifficultyBand.HARD
+                    ? BoardShuffler.shuffle(rows, cols, random.nextLong())
+                    : walk(walkLengths.get(band));
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SOLVE_BUDGET_MILLIS);
+            solver.setStopCondition(() -> System.nanoTime() - deadline >= 0);
+            int[] moves = solver.solve(state);
+            if (moves == null) {
+                return false;
+            }
+            if (band != DifficultyBand.HARD) {
+                int walkLength = walkLengths.get(band);
+                if (moves.length < band.minLength(rows, cols)) {
+                    walkLengths.put(band, walkLength + 1);
+                } else if (moves.length > band.maxLength(rows, cols) && walkLength > 1) {
+                    walkLengths.put(band, walkLength - 1);
+                }
+            }
+            DifficultyBand actual = DifficultyBand.of(rows, cols, moves.length);
+            if (actual != null && counts.get(actual).get() < capacity) {
+                boards.get(actual).add(new CalibratedBoard(rows, cols, state, moves));
+                counts.get(actual).incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 从目标局面出发随机走 steps 步，不立即走回头路。
+         */
+        private int[] walk(int steps) {
+            int[] state = new int[rows * cols];
+            for (int pos = 0; pos < state.length - 1; pos++) {
+                state[pos] = pos + 1;
+            }
+            int blank = state.length - 1;
+            int previous = -1;
+            for (int step = 0; step < steps; step++) {
+                int[] candidates = neighbors[blank];
+                int next;
+                do {
+                    next = candidates[random.nextInt(candidates.length)];
+                } while (next == previous);
+                state[blank] = state[next];
+                state[next] = 0;
+                previous = blank;
+                blank = next;
+            }
+            return state;
+        }
+    }
+}
@@ -1,13 +1,33 @@
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
 
 public class PuzzleSolver {
+    /** 所有异步求解共用的单个后台线程，优先级略低于界面线程 */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "puzzle-solver");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+
     private final int rows;
     private final int cols;
     private final List<PuzzlePiece> pieces;
     private final PuzzlePiece emptyPiece;
-    private final int[] patternDatabase;
+    private final BoardSolver engine;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private int[] startState;
 
     public PuzzleSolver(List<PuzzlePiece> pieces, int rows, int cols) {
         this.pieces = new ArrayList<>(pieces);
@@ -17,7 +37,8 @@ public class PuzzleSolver {
         if (this.emptyPiece == null) {
             throw new IllegalArgumentException("No empty piece found in the puzzle");
         }
-        this.patternDatabase = generatePatternDatabase();
+        this.engine = new BoardSolver(rows, cols);
+        engine.setStopCondition(cancelled::get);
     }
 
     private PuzzlePiece findEmptyPiece(List<PuzzlePiece> pieces) {
@@ -29,117 +50,240 @@ public class PuzzleSolver {
         return null;
     }
 
+    /**
+     * 在调用线程上同步求最优解，只接受不超过 16 格的棋盘，更大的棋盘抛出 IllegalArgumentException，
+     * 应改用带时限的 {@link #solveAsync}、{@link #solveAnytime} 或 {@link #solveStreaming}。
+     * 界面代码应使用 {@link #solveAsync}，避免阻塞 EDT。
+     */
     public List<Point> solve() {
-        if (!isSolvable()) {
-            System.out.println("Puzzle is not solvable.");
-            return null;
-        }
+        int[] state = getCurrentState();
+        return toPoints(toSequence(state, engine.solve(state)));
+    }
 
+    /**
+     * 在后台求解线程上求解当前局面，调用线程（通常是 EDT）只负责读取棋盘快照，立即返回。
+     * 求解方式由 {@link SolverEngine#select} 按尺寸和 timeoutMillis 选择：小棋盘求最优解，
+     * 大棋盘（或 4x4 的模式数据库还没建好而又有时限时）用随时可停的搜索在时限内给出最好的解，超大棋盘逐行逐列归约。
+     * 调用返回的 future 的 cancel 会让搜索在几千个节点内停下；超过 timeoutMillis 仍未求出时
+     * future 以 {@link TimeoutException} 异常完成。不可解的局面得到 null。
+     *
+     * @param timeoutMillis 从调用时刻起算的时限，0 表示不限时
+     * @param listener      进度回调，在求解线程上调用，可以为 null
+     */
+    public CompletableFuture<MoveSequence> solveAsync(long timeoutMillis, SolveProgressListener listener) {
+        CompletableFuture<MoveSequence> future = new CompletableFuture<>();
         int[] initialState = getCurrentState();
-        int threshold = getHeuristic(initialState);
-        int maxIterations = 1000000;
-        int iterations = 0;
-
-        while (iterations < maxIterations) {
-            SearchResult result = search(initialState, 0, threshold, new ArrayList<>(), iterations);
-            if (result.path != null) {
-                System.out.println("Solution found after " + iterations + " iterations.");
-                return result.path;
+        if (!PuzzleParity.isSolvable(rows, cols, initialState)) {
+            future.complete(null);
+            return future;
+        }
+        startState = initialState.clone();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        BooleanSupplier timedOut = () -> timeoutMillis > 0 && System.nanoTime() - deadline >= 0;
+        engine.setStopCondition(() -> cancelled.get() || timedOut.getAsBoolean());
+        engine.setProgressListener(listener);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                cancelled.set(true);
+            }
+        });
+        EXECUTOR.execute(() -> {
+            if (future.isDone()) {
+                return;
             }
-            if (result.cost == Integer.MAX_VALUE) {
-                System.out.println("No solution found after " + iterations + " iterations.");
-                return null;
+            try {
+                MoveSequence solution = toSequence(initialState,
+                        engine.solve(initialState, engine.selectEngine(timeoutMillis), null));
+                if (solution == null && timedOut.getAsBoolean()) {
+                    future.completeExceptionally(new TimeoutException("No solution within " + timeoutMillis + " ms"));
+                } else {
+                    future.complete(solution);
+                }
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
             }
-            threshold = result.cost;
-            iterations += 1000;
-            System.out.println("Iteration: " + iterations + ", Threshold: " + threshold);
+        });
+        return future;
+    }
+
+    /**
+     * 随时可停的求解，适合 5x5 及更大的棋盘：先用大权重的加权 IDA* 在几毫秒内给出一个解，
+     * 然后在 budgetMillis 内不断寻找更短的解，每次改进都通过 listener 发布。
+     * 返回的 future 在时限用完、证明最优或被取消时以当时最好的解完成，不可解或一个解都没找到时为 null。
+     *
+     * @param budgetMillis 从调用时刻起算的时间预算，0 表示一直改进到证明最优
+     * @param listener     改进回调，在求解线程上调用，可以为 null
+     */
+    public CompletableFuture<MoveSequence> solveAnytime(long budgetMillis, SolutionImprovementListener listener) {
+        CompletableFuture<MoveSequence> future = new CompletableFuture<>();
+        int[] initialState = getCurrentState();
+        if (!PuzzleParity.isSolvable(rows, cols, initialState)) {
+            future.complete(null);
+            return future;
         }
+        startState = initialState.clone();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        engine.setStopCondition(() -> cancelled.get() || budgetMillis > 0 && System.nanoTime() - deadline >= 0);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                cancelled.set(true);
+            }
+        });
+        EXECUTOR.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                int[] moves = engine.solveAnytime(initialState, (improved, bound) -> {
+                    if (listener != null) {
+                        listener.onImprovement(toSequence(initialState, improved), bound);
+                    }
+                });
+                future.complete(toSequence(initialState, moves));
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
 
-        System.out.println("No solution found after " + iterations + " iterations.");
-        return null;
+    /**
+     * 逐行逐列归约求解超大棋盘，见 {@link HierarchicalSolver}。每算出一步就在求解线程上以移入空格的方块位置
+     * （row * cols + col）调用 listener，不必等整条解算完，可以直接接一个 {@link MoveSequence.Builder}；
+     * 返回的 future 在所有步都交给 listener 之后以总步数完成，不可解的局面得到 null。取消 future 后不再调用 listener。
+     */
+    public CompletableFuture<Integer> solveStreaming(IntConsumer listener) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        int[] initialState = getCurrentState();
+        if (!PuzzleParity.isSolvable(rows, cols, initialState)) {
+            future.complete(null);
+            return future;
+        }
+        startState = initialState.clone();
+        EXECUTOR.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                int length = engine.solveHierarchical(initialState, move -> {
+                    if (future.isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    listener.accept(move);
+                });
+                future.complete(length);
+            } catch (CancellationException e) {
+                future.cancel(false);
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
     }
 
-    private SearchResult search(int[] state, int g, int threshold, List<Point> path, int iterations) {
-        int f = g + getHeuristic(state);
-        if (f > threshold) {
-            return new SearchResult(null, f);
+    private MoveSequence toSequence(int[] state, int[] moves) {
+        if (moves == null) {
+            return null;
         }
-        if (isGoalState(state)) {
-            return new SearchResult(path, threshold);
+        int blank = 0;
+        while (state[blank] != 0) {
+            blank++;
         }
-        int min = Integer.MAX_VALUE;
-        int emptyIndex = findEmptyIndex(state);
-        int emptyRow = emptyIndex / cols;
-        int emptyCol = emptyIndex % cols;
-
-        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
-        for (int[] dir : directions) {
-            int newRow = emptyRow + dir[0];
-            int newCol = emptyCol + dir[1];
-            if (newRow >= 0 && newRow < rows && newCol >= 0 && newCol < cols) {
-                int[] newState = state.clone();
-                int swapIndex = newRow * cols + newCol;
-                newState[emptyIndex] = state[swapIndex];
-                newState[swapIndex] = 0;
-
-                List<Point> newPath = new ArrayList<>(path);
-                newPath.add(new Point(newCol, newRow));
-
-                SearchResult result = search(newState, g + 1, threshold, newPath, iterations + 1);
-                if (result.path != null) {
-                    return result;
-                }
-                min = Math.min(min, result.cost);
-            }
+        return MoveSequence.of(rows, cols, blank, moves);
+    }
+
+    /**
+     * 换成每一步移入空格的方块坐标（x 为列、y 为行），只在需要 {@link Point} 的接口边界上使用。
+     */
+    public static List<Point> toPoints(MoveSequence moves) {
+        if (moves == null) {
+            return null;
+        }
+        List<Point> path = new ArrayList<>(moves.length());
+        MoveSequence.Cursor cursor = moves.cursor();
+        while (cursor.hasNext()) {
+            int move = cursor.nextInt();
+            path.add(new Point(move % moves.getCols(), move / moves.getCols()));
         }
-        return new SearchResult(null, min);
+        return path;
     }
 
-    private boolean isSolvable() {
-        int inversions = 0;
-        int emptyRow = 0;
-        List<Integer> flatPuzzle = new ArrayList<>();
+    /**
+     * 指定估值函数，例如 {@link LinearConflictHeuristic} 或 {@link WalkingDistanceHeuristic}。
+     */
+    public void setHeuristic(Heuristic heuristic) {
+        engine.setHeuristic(heuristic);
+    }
 
-        for (int i = 0; i < pieces.size(); i++) {
-            PuzzlePiece piece = pieces.get(i);
-            if (piece == emptyPiece) {
-                emptyRow = piece.getRow();
-            } else {
-                flatPuzzle.add(piece.getCorrectRow() * cols + piece.getCorrectCol());
-            }
-        }
+    /**
+     * 并行搜索使用的线程数，默认为处理器核数；设为 1 时始终顺序搜索。3x3 棋盘总是顺序搜索。
+     */
+    public void setParallelism(int parallelism) {
+        engine.setParallelism(parallelism);
+    }
 
-        for (int i = 0; i < flatPuzzle.size() - 1; i++) {
-            for (int j = i + 1; j < flatPuzzle.size(); j++) {
-                if (flatPuzzle.get(i) > flatPuzzle.get(j)) {
-                    inversions++;
-                }
-            }
-        }
+    /**
+     * 走子剪枝的状态机，默认 {@link MovePruner#reverseOnly()}，可换成 {@link MovePruner#duplicates(int)}。
+     */
+    public void setMovePruner(MovePruner movePruner) {
+        engine.setMovePruner(movePruner);
+    }
 
-        if (cols % 2 == 1) {
-            return inversions % 2 == 0;
-        } else {
-            return ((rows - emptyRow) % 2 == 1) == (inversions % 2 == 0);
-        }
+    /**
+     * 求解前先查、求出最优解后写入的缓存，默认是 {@link SolutionCache#getDefault()}，传 null 关闭。
+     */
+    public void setSolutionCache(SolutionCache cache) {
+        engine.setSolutionCache(cache);
     }
 
-    private boolean isGoalState(int[] state) {
-        for (int i = 0; i < state.length - 1; i++) {
-            if (state[i] != i + 1) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * 求解统计的去处，默认是进程内共用的 {@link SolverMetrics#getInstance()}，传 null 不记录。
+     */
+    public void setMetrics(SolverMetrics metrics) {
+        engine.setMetrics(metrics);
     }
 
-    private int findEmptyIndex(int[] state) {
-        for (int i = 0; i < state.length; i++) {
-            if (state[i] == 0) {
-                return i;
-            }
-        }
-        return -1;
+    /**
+     * 置换表的内存上限（字节），并行搜索时平均分给各线程。默认 0，不使用置换表。
+     */
+    public void setTranspositionTableBytes(long bytes) {
+        engine.setTranspositionTableBytes(bytes);
+    }
+
+    /**
+     * 最近一次搜索中置换表命中的比例，没有使用置换表时为 0。
+     */
+    public double getTableHitRate() {
+        return engine.getTableHitRate();
+    }
+
+    /**
+     * 最近一次搜索中因置换表命中而剪掉的子树数。
+     */
+    public long getTableCutoffs() {
+        return engine.getTableCutoffs();
+    }
+
+    /**
+     * 棋盘是否仍是异步求解开始时的局面；求解期间玩家移动过方块时，得到的解已不适用。
+     */
+    public boolean isBoardUnchanged() {
+        return startState != null && Arrays.equals(startState, getCurrentState());
+    }
+
+    public long getNodesExpanded() {
+        return engine.getNodesExpanded();
+    }
+
+    /**
+     * 最近一次搜索运行的阈值轮数，查表或命中缓存时为 0。
+     */
+    public int getIterations() {
+        return engine.getIterations();
+    }
+
+    public double getNodesPerSecond() {
+        return engine.getNodesPerSecond();
     }
 
     private int[] getCurrentState() {
@@ -150,41 +294,4 @@ public class PuzzleSolver {
         }
         return state;
     }
-
-    private int getHeuristic(int[] state) {
-        int heuristic = 0;
-        for (int i = 0; i < state.length; i++) {
-            if (state[i] != 0) {
-                heuristic += patternDatabase[state[i] * state.length + i];
-            }
-        }
-        return heuristic;
-    }
-
-    private int[] generatePatternDatabase() {
-        int size = rows * cols;
-        int[] database = new int[size * size];
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (i != 0) {
-                    int targetRow = (i - 1) / cols;
-                    int targetCol = (i - 1) % cols;
-                    int currentRow = j / cols;
-                    int currentCol = j % cols;
-                    database[i * size + j] = Math.abs(targetRow - currentRow) + Math.abs(targetCol - currentCol);
-                }
-            }
-        }
-        return database;
-    }
-
-    private static class SearchResult {
-        final List<Point> path;
-        final int cost;
-
-        SearchResult(List<Point> path, int cost) {
-            this.path = path;
-            this.cost = cost;
-        }
-    }
 }
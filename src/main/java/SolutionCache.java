@@ -0,0 +1,411 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 最优解缓存。以压缩编码的棋盘为键，内存中按 LRU 保留有限个局面；每条最优解同时登记它路过的所有局面，
+ * 因为最优解的任何后缀仍是最优解，玩家照着解走了几步或者重置后再求解都能直接命中。
+ * 新的解追加写到磁盘上的段文件，由 {@link #prefetch()} 或 {@link #load()} 整段读回；段文件过大时在加载后压缩为当前内存中的解。
+ * 读回完成前 {@link #lookup} 对段文件里的旧解一律按未命中返回 null，不在调用线程上读文件，提示按钮所在的界面线程因此不会被卡住。
+ *
+ * 段文件格式（大端）：
+ * <pre>
+ * int    MAGIC ("PSOL")
+ * int    VERSION
+ * 记录：int bodyLength, int crc32(body), body
+ * body： short rows, short cols, short[rows * cols] state, short length, short[length] moves
+ * </pre>
+ * 末尾不完整或校验失败的记录（例如写入时进程被杀）在加载时丢弃。
+ */
+public class SolutionCache {
+    private static final int MAGIC = 0x50534F4C;
+    private static final int VERSION = 1;
+    private static final int DEFAULT_CAPACITY = 200_000;
+    private static final long COMPACT_THRESHOLD_BYTES = 32L << 20;
+    private static SolutionCache defaultCache;
+
+    private final Path file;
+    private final int capacity;
+    private LinkedHashMap<Key, PathRef> entries;
+    private final Object fileLock = new Object();
+    private volatile boolean loaded;
+    private boolean loading;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param file     段文件，为 null 时只在内存中缓存
+     * @param capacity 内存中最多保留的局面数
+     */
+    public SolutionCache(Path file, int capacity) {
+        this.file = file;
+        this.capacity = capacity;
+        this.entries = newEntries();
+    }
+
+    private LinkedHashMap<Key, PathRef> newEntries() {
+        return new LinkedHashMap<Key, PathRef>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PathRef> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * 默认段文件为 ~/.puzzle_game/solutions.bin，可用系统属性 puzzle.cache.file 覆盖。
+     */
+    public static synchronized SolutionCache getDefault() {
+        if (defaultCache == null) {
+            String path = System.getProperty("puzzle.cache.file",
+                    System.getProperty("user.home") + File.separator + ".puzzle_game" + File.separator + "solutions.bin");
+            defaultCache = new SolutionCache(new File(path).toPath(), DEFAULT_CAPACITY);
+        }
+        return defaultCache;
+    }
+
+    /**
+     * 在低优先级的后台线程中读回默认缓存的段文件。
+     */
+    public static void prefetch() {
+        Thread thread = new Thread(() -> getDefault().load(), "solution-cache");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * 返回从 state 出发的最优解（依次移入空格的方块位置），未缓存时返回 null；段文件读回之前只能命中本次运行中 put 过的解。
+     */
+    public synchronized int[] lookup(int rows, int cols, int[] state) {
+        PathRef ref = entries.get(new Key(rows, cols, state));
+        if (ref == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return Arrays.copyOfRange(ref.moves, ref.offset, ref.moves.length);
+    }
+
+    /**
+     * 记录从 state 出发的一条最优解，并追加写入段文件。段文件尚未读回时同样立即生效，读回的旧解不会覆盖它。
+     */
+    public void put(int rows, int cols, int[] state, int[] moves) {
+        synchronized (this) {
+            if (entries.containsKey(new Key(rows, cols, state))) {
+                return;
+            }
+            index(entries, rows, cols, state, moves);
+        }
+        if (file != null) {
+            try {
+                byte[] body = encode(rows, cols, state, moves);
+                synchronized (fileLock) {
+                    append(body);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to append solution cache " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 沿解走一遍，把路过的每个局面都指向同一条解的相应后缀。
+     */
+    private static void index(Map<Key, PathRef> entries, int rows, int cols, int[] state, int[] moves) {
+        int[] board = state.clone();
+        int blank = indexOf(board, 0);
+        for (int step = 0; step < moves.length; step++) {
+            entries.put(new Key(rows, cols, board), new PathRef(moves, step));
+            int next = moves[step];
+            board[blank] = board[next];
+            board[next] = 0;
+            blank = next;
+        }
+    }
+
+    private static int indexOf(int[] board, int tile) {
+        for (int pos = 0; pos < board.length; pos++) {
+            if (board[pos] == tile) {
+                return pos;
+            }
+        }
+        throw new IllegalArgumentException("No empty cell in state");
+    }
+
+    /**
+     * 在调用线程上读回段文件并在需要时压缩，已读回或正在读回时直接返回。
+     * 旧解先登记到单独的表里，最后在缓存锁内换上并补进期间 put 的解；读写文件都不持有缓存锁。
+     */
+    public void load() {
+        synchronized (this) {
+            if (loaded || loading) {
+                return;
+            }
+            loading = true;
+        }
+        LinkedHashMap<Key, PathRef> restored = newEntries();
+        try {
+            if (file != null && Files.isRegularFile(file)) {
+                read(restored);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to load solution cache " + file + ": " + e.getMessage());
+        }
+        synchronized (this) {
+            restored.putAll(entries);
+            entries = restored;
+            loaded = true;
+            loading = false;
+        }
+        try {
+            if (file != null && Files.isRegularFile(file) && Files.size(file) > COMPACT_THRESHOLD_BYTES) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to compact solution cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 顺序读出段文件中的记录登记到 restored。并发追加时读到的半条记录和之后的内容都已在内存中，遇到即停止。
+     */
+    private void read(Map<Key, PathRef> restored) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                return;
+            }
+            while (true) {
+                int length;
+                int checksum;
+                byte[] body;
+                try {
+                    length = data.readInt();
+                    checksum = data.readInt();
+                    if (length <= 0 || length > 1 << 24) {
+                        break;
+                    }
+                    body = new byte[length];
+                    data.readFully(body);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                decode(restored, body);
+            }
+        }
+    }
+
+    private static void decode(Map<Key, PathRef> restored, byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int rows = in.readUnsignedShort();
+        int cols = in.readUnsignedShort();
+        int[] state = new int[rows * cols];
+        for (int pos = 0; pos < state.length; pos++) {
+            state[pos] = in.readUnsignedShort();
+        }
+        int[] moves = new int[in.readUnsignedShort()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = in.readUnsignedShort();
+        }
+        index(restored, rows, cols, state, moves);
+    }
+
+    private static byte[] encode(int rows, int cols, int[] state, int[] moves) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + 2 * (state.length + moves.length + 1));
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(rows);
+        out.writeShort(cols);
+        for (int tile : state) {
+            out.writeShort(tile);
+        }
+        out.writeShort(moves.length);
+        for (int move : moves) {
+            out.writeShort(move);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void append(byte[] body) throws IOException {
+        Files.createDirectories(file.getParent());
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND))) {
+            DataOutputStream data = new DataOutputStream(out);
+            if (fresh) {
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+            }
+            writeRecord(data, body);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream data, byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        data.writeInt(body.length);
+        data.writeInt((int) crc.getValue());
+        data.write(body);
+    }
+
+    /**
+     * 只保留内存中仍然引用的解，每条解从仍在内存中的最靠前的局面写一次，写到临时文件后原子替换。
+     * 缓存锁只在取快照时持有；替换期间持有文件锁，快照之后追加的解会等替换完成再写进新文件。
+     */
+    private void compact() throws IOException {
+        Map<int[], Map.Entry<Key, PathRef>> earliest = new IdentityHashMap<>();
+        synchronized (this) {
+            for (Map.Entry<Key, PathRef> entry : entries.entrySet()) {
+                Map.Entry<Key, PathRef> current = earliest.get(entry.getValue().moves);
+                if (current == null || entry.getValue().offset < current.getValue().offset) {
+                    earliest.put(entry.getValue().moves, new AbstractMap.SimpleImmutableEntry<>(entry));
+                }
+            }
+        }
+        List<byte[]> records = new ArrayList<>(earliest.size());
+        for (Map.Entry<Key, PathRef> entry : earliest.values()) {
+            Key key = entry.getKey();
+            PathRef ref = entry.getValue();
+            records.add(encode(key.rows, key.cols, key.state(), Arrays.copyOfRange(ref.moves, ref.offset, ref.moves.length)));
+        }
+        synchronized (fileLock) {
+            replace(records);
+        }
+    }
+
+    private void replace(List<byte[]> records) throws IOException {
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp, StandardOpenOption.WRITE))) {
+                DataOutputStream data = new DataOutputStream(out);
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                for (byte[] record : records) {
+                    writeRecord(data, record);
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static final class PathRef {
+        final int[] moves;
+        final int offset;
+
+        PathRef(int[] moves, int offset) {
+            this.moves = moves;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * 棋盘的规范压缩编码：每格 ceil(log2(格子数)) 位，依次填入 long 数组。
+     */
+    private static final class Key {
+        final int rows;
+        final int cols;
+        final long[] words;
+        final int hash;
+
+        Key(int rows, int cols, int[] state) {
+            this.rows = rows;
+            this.cols = cols;
+            int bits = bitsPerCell(state.length);
+            this.words = new long[(state.length * bits + 63) / 64];
+            for (int pos = 0; pos < state.length; pos++) {
+                int bit = pos * bits;
+                words[bit >>> 6] |= (long) state[pos] << (bit & 63);
+                if ((bit & 63) + bits > 64) {
+                    words[(bit >>> 6) + 1] |= (long) state[pos] >>> (64 - (bit & 63));
+                }
+            }
+            this.hash = 31 * (rows * 257 + cols) + Arrays.hashCode(words);
+        }
+
+        int[] state() {
+            int[] state = new int[rows * cols];
+            int bits = bitsPerCell(state.length);
+            long mask = (1L << bits) - 1;
+            for (int pos = 0; pos < state.length; pos++) {
+                int bit = pos * bits;
+                long value = words[bit >>> 6] >>> (bit & 63);
+                if ((bit & 63) + bits > 64) {
+                    value |= words[(bit >>> 6) + 1] << (64 - (bit & 63));
+                }
+                state[pos] = (int) (value & mask);
+            }
+            return state;
+        }
+
+        private static int bitsPerCell(int cells) {
+            return Math.max(1, 32 - Integer.numberOfLeadingZeros(cells - 1));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return rows == key.rows && cols == key.cols && Arrays.equals(words, key.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * 随时可停求解每找到一个更短的解回调一次。在求解线程上调用，需要更新界面时自行切换到 EDT。
+ */
+public interface SolutionImprovementListener {
+    /**
+     * @param solution           从求解开始时的局面出发的完整解
+     * @param suboptimalityBound 该解长度相对最优解长度的已证明上界倍数，1.0 表示已证明最优
+     */
+    void onImprovement(MoveSequence solution, double suboptimalityBound);
+}
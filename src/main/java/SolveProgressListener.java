@@ -0,0 +1,10 @@
+/**
+ * 求解进度回调。在求解线程上调用，实现应尽快返回；需要更新界面时自行切换到 EDT。
+ */
+public interface SolveProgressListener {
+    /**
+     * @param threshold     当前迭代的阈值（f 值上限）
+     * @param nodesExpanded 本次求解至今展开的节点数
+     */
+    void onProgress(int threshold, long nodesExpanded);
+}
@@ -0,0 +1,67 @@
+/**
+ * 一次求解的统计，求解结束时交给 {@link SolverMetricsListener}。
+ */
+public final class SolveStats {
+    private final int rows;
+    private final int cols;
+    private final int solutionLength;
+    private final long nodesExpanded;
+    private final long heuristicEvaluations;
+    private final int thresholdIterations;
+    private final long elapsedNanos;
+    private final boolean cacheHit;
+
+    public SolveStats(int rows, int cols, int solutionLength, long nodesExpanded, long heuristicEvaluations,
+                      int thresholdIterations, long elapsedNanos, boolean cacheHit) {
+        this.rows = rows;
+        this.cols = cols;
+        this.solutionLength = solutionLength;
+        this.nodesExpanded = nodesExpanded;
+        this.heuristicEvaluations = heuristicEvaluations;
+        this.thresholdIterations = thresholdIterations;
+        this.elapsedNanos = elapsedNanos;
+        this.cacheHit = cacheHit;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * 解的步数，无解或被停止时为 -1。
+     */
+    public int getSolutionLength() {
+        return solutionLength;
+    }
+
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public long getHeuristicEvaluations() {
+        return heuristicEvaluations;
+    }
+
+    public int getThresholdIterations() {
+        return thresholdIterations;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols + ": " + solutionLength + " moves, " + nodesExpanded + " nodes, "
+                + thresholdIterations + " iterations, " + elapsedNanos / 1_000_000 + " ms"
+                + (cacheHit ? " (cache)" : "");
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * 按棋盘尺寸和时间预算挑选的求解方式，由 {@link BoardSolver#solve(int[], SolverEngine, java.util.function.ObjDoubleConsumer)} 执行。
+ * <ul>
+ * <li>{@link #TABLE}：3x3 查 {@link EightPuzzleTable}，不到 1 毫秒。</li>
+ * <li>{@link #OPTIMAL}：不超过 16 格（4x4 以及 3x4、2x8 等长方形）用 IDA* 求最优解，
+ * 4x4 用模式数据库，其他尺寸用步行距离或线性冲突。</li>
+ * <li>{@link #ANYTIME}：更大的棋盘用 {@link AnytimeIdaStarSearch}，几毫秒内给出第一个解，预算内不断缩短。</li>
+ * <li>{@link #HIERARCHICAL}：超过 36 格（6x6）的棋盘（包括 2x19 这样的长条）用 {@link HierarchicalSolver} 逐行逐列归约，
+ * 30x30 也只要几毫秒，解不是最优的；这么大的棋盘上加权搜索几秒内连第一个解都给不出。</li>
+ * </ul>
+ */
+public enum SolverEngine {
+    TABLE,
+    OPTIMAL,
+    ANYTIME,
+    HIERARCHICAL;
+
+    /** 超过这个格数的棋盘，最优解可能要几分钟以上 */
+    private static final int MAX_OPTIMAL_CELLS = 16;
+    /** 超过这个格数的棋盘，随时可停的搜索也可能迟迟给不出第一个解 */
+    private static final int MAX_ANYTIME_CELLS = 36;
+    /** 预算短于这个值时，需要搜索的棋盘不冒险等最优解 */
+    private static final long MIN_OPTIMAL_BUDGET_MILLIS = 1_000;
+
+    /**
+     * @param budgetMillis 求解的时间预算，0 表示不限时
+     */
+    public static SolverEngine select(int rows, int cols, long budgetMillis) {
+        if (rows < 2 || cols < 2) {
+            throw new IllegalArgumentException("Board must be at least 2x2: " + rows + "x" + cols);
+        }
+        if (rows == 3 && cols == 3) {
+            return TABLE;
+        }
+        if (rows * cols > MAX_ANYTIME_CELLS) {
+            return HIERARCHICAL;
+        }
+        if (rows * cols > MAX_OPTIMAL_CELLS) {
+            return ANYTIME;
+        }
+        if (budgetMillis == 0) {
+            return OPTIMAL;
+        }
+        // 有时限时不为构建模式数据库而等待，先用随时可停的搜索和较弱的估值给出结果
+        boolean ready = AdditivePatternDatabase.partitionFor(rows, cols) == null
+                || AdditivePatternDatabase.isAvailable(rows, cols);
+        return ready && budgetMillis >= MIN_OPTIMAL_BUDGET_MILLIS ? OPTIMAL : ANYTIME;
+    }
+}
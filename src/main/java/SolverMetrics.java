@@ -0,0 +1,206 @@
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 进程内所有求解共用的统计。搜索内部只累加自己的局部计数，求解结束后由 {@link BoardSolver} 汇总一次，
+ * 热路径上没有任何共享写入或输出。第一次取实例时注册到平台 MBeanServer。
+ */
+public final class SolverMetrics implements SolverMetricsMBean {
+    public static final String OBJECT_NAME = "puzzle:type=SolverMetrics";
+    private static final int LATENCY_BUCKETS = 18;
+    private static SolverMetrics instance;
+
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder heuristicEvaluations = new LongAdder();
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder tableProbes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+    private final AtomicLongArray latency = new AtomicLongArray(LATENCY_BUCKETS);
+    private final List<SolverMetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+    private SolverMetrics() {
+    }
+
+    public static synchronized SolverMetrics getInstance() {
+        if (instance == null) {
+            instance = new SolverMetrics();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(instance, name);
+                }
+            } catch (JMException | SecurityException e) {
+                System.err.println("Failed to register solver metrics MBean: " + e.getMessage());
+            }
+        }
+        return instance;
+    }
+
+    public void addListener(SolverMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SolverMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 记录一次求解并通知监听器。
+     */
+    public void record(SolveStats stats) {
+        solves.increment();
+        nodes.add(stats.getNodesExpanded());
+        heuristicEvaluations.add(stats.getHeuristicEvaluations());
+        iterations.add(stats.getThresholdIterations());
+        if (stats.isCacheHit()) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+            searchNanos.add(stats.getElapsedNanos());
+        }
+        latency.incrementAndGet(bucketOf(stats.getElapsedNanos()));
+        for (SolverMetricsListener listener : listeners) {
+            listener.onSolve(stats);
+        }
+    }
+
+    public void recordTable(long probes, long hits) {
+        tableProbes.add(probes);
+        tableHits.add(hits);
+    }
+
+    private static int bucketOf(long nanos) {
+        long millis = nanos / 1_000_000;
+        int bucket = 64 - Long.numberOfLeadingZeros(millis);
+        return Math.min(bucket, LATENCY_BUCKETS - 1);
+    }
+
+    @Override
+    public long getSolveCount() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getNodesExpanded() {
+        return nodes.sum();
+    }
+
+    @Override
+    public double getNodesPerSecond() {
+        long nanos = searchNanos.sum();
+        return nanos == 0 ? 0 : nodes.sum() * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public long getHeuristicEvaluations() {
+        return heuristicEvaluations.sum();
+    }
+
+    @Override
+    public long getThresholdIterations() {
+        return iterations.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public long getTableProbes() {
+        return tableProbes.sum();
+    }
+
+    @Override
+    public long getTableHits() {
+        return tableHits.sum();
+    }
+
+    @Override
+    public double getTableHitRate() {
+        long probes = tableProbes.sum();
+        return probes == 0 ? 0 : (double) tableHits.sum() / probes;
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            counts[i] = latency.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return percentile(0.50);
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return percentile(0.99);
+    }
+
+    /**
+     * 取所在桶的上界，精度为 2 倍。
+     */
+    private double percentile(double fraction) {
+        long[] counts = getLatencyHistogram();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (counts.length - 1);
+    }
+
+    @Override
+    public void reset() {
+        solves.reset();
+        nodes.reset();
+        searchNanos.reset();
+        heuristicEvaluations.reset();
+        iterations.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        tableProbes.reset();
+        tableHits.reset();
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            latency.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * 每次求解结束后回调，在求解线程上调用，实现应尽快返回。
+ */
+public interface SolverMetricsListener {
+    void onSolve(SolveStats stats);
+}
@@ -0,0 +1,40 @@
+/**
+ * 通过 JMX 暴露的求解统计，注册名为 {@value SolverMetrics#OBJECT_NAME}。
+ */
+public interface SolverMetricsMBean {
+    long getSolveCount();
+
+    long getNodesExpanded();
+
+    /**
+     * 累计展开节点数除以累计搜索耗时。
+     */
+    double getNodesPerSecond();
+
+    long getHeuristicEvaluations();
+
+    long getThresholdIterations();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRate();
+
+    long getTableProbes();
+
+    long getTableHits();
+
+    double getTableHitRate();
+
+    /**
+     * 求解耗时直方图：第 i 个桶统计耗时小于 2^i 毫秒（且不落在前一个桶）的次数，最后一个桶收纳其余。
+     */
+    long[] getLatencyHistogram();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP99Millis();
+
+    void reset();
+}
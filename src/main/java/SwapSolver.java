@@ -0,0 +1,65 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 标准模式（任意两块都能直接交换）的最优解。把棋盘看成一个排列，每个长为 k 的环恰好需要 k - 1 次交换，
+ * 最少交换次数就是格子数减去环数。沿着环逐块归位，每次交换都让一块落到正确位置，整体 O(n)，50x50 也是瞬间完成。
+ */
+public class SwapSolver {
+    private final int rows;
+    private final int cols;
+    private final List<PuzzlePiece> pieces;
+
+    public SwapSolver(List<PuzzlePiece> pieces, int rows, int cols) {
+        this.pieces = new ArrayList<>(pieces);
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * 返回交换序列，每相邻两个点（第 2i 与 2i + 1 个）是一次交换的两个格子（x 为列，y 为行）。
+     */
+    public List<Point> solve() {
+        int[] swaps = solve(getCurrentState());
+        List<Point> path = new ArrayList<>(swaps.length);
+        for (int cell : swaps) {
+            path.add(new Point(cell % cols, cell / cols));
+        }
+        return path;
+    }
+
+    /**
+     * @param state state[pos] = 当前位于 pos 的方块的目标位置，必须是 0..n-1 的排列
+     * @return 依次交换的格子对，按 a0, b0, a1, b1, ... 排列，交换次数为格子数减去环数
+     */
+    public static int[] solve(int[] state) {
+        int[] board = state.clone();
+        int[] swaps = new int[2 * board.length];
+        int count = 0;
+        for (int pos = 0; pos < board.length; pos++) {
+            // 把 pos 上的方块换到它的目标位置，直到换回来的正好属于 pos，这个环就归位了
+            while (board[pos] != pos) {
+                int target = board[pos];
+                if (target < 0 || target >= board.length || board[target] == target) {
+                    throw new IllegalArgumentException("State is not a permutation");
+                }
+                board[pos] = board[target];
+                board[target] = target;
+                swaps[count++] = pos;
+                swaps[count++] = target;
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(swaps, 0, result, 0, count);
+        return result;
+    }
+
+    private int[] getCurrentState() {
+        int[] state = new int[rows * cols];
+        for (PuzzlePiece piece : pieces) {
+            state[piece.getRow() * cols + piece.getCol()] = piece.getCorrectRow() * cols + piece.getCorrectCol();
+        }
+        return state;
+    }
+}
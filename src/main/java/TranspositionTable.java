@@ -0,0 +1,112 @@
+import java.util.Arrays;
+
+/**
+ * IDA* 用的定长置换表，开放寻址，数据全部放在一个 long 数组里：每个槽位两个 long，
+ * 前一个是局面的 Zobrist 哈希（0 表示空槽），后一个高 32 位是写入时的阈值、中间 16 位是走子剪枝状态、
+ * 低 16 位是到达该局面的最小 g。
+ * 同一局面以更小的 g 出现过时，当前子树一定被那条更短的路径覆盖，可以剪掉；
+ * 同一轮阈值内以相同 g、相同剪枝状态再次出现时，子树已经以同样的走法限制搜过一遍，也可以剪掉。
+ * 探测 {@link #PROBE_LIMIT} 个槽位都不命中时，优先替换旧阈值留下的条目，其次替换 g 最大（子树最小）的条目。
+ * 不是线程安全的，并行搜索中每个工作线程各用一张。
+ */
+public class TranspositionTable {
+    public static final int ENTRY_BYTES = 16;
+    private static final int PROBE_LIMIT = 4;
+
+    private final long[] entries;
+    private final int mask;
+    private long probes;
+    private long hits;
+    private long cutoffs;
+
+    /**
+     * @param maxBytes 表占用内存的上限，槽位数取不超过它的 2 的幂
+     */
+    public TranspositionTable(long maxBytes) {
+        long slots = Long.highestOneBit(Math.max(maxBytes / ENTRY_BYTES, PROBE_LIMIT));
+        if (slots > 1 << 28) {
+            slots = 1 << 28;
+        }
+        this.entries = new long[(int) slots * 2];
+        this.mask = (int) slots - 1;
+    }
+
+    /**
+     * 以 g 到达哈希为 hash 的局面、当前阈值为 threshold、走子剪枝状态为 pruneState 时，查表并记录本次访问。
+     * 返回 true 表示这棵子树可以剪掉。
+     */
+    public boolean probe(long hash, int g, int threshold, int pruneState) {
+        if (hash == 0) {
+            hash = 1;
+        }
+        probes++;
+        int start = (int) (hash ^ (hash >>> 32)) & mask;
+        int victim = -1;
+        long victimScore = Long.MIN_VALUE;
+        for (int i = 0; i < PROBE_LIMIT; i++) {
+            int slot = ((start + i) & mask) << 1;
+            long key = entries[slot];
+            if (key == hash) {
+                hits++;
+                long data = entries[slot + 1];
+                int storedG = (int) data & 0xFFFF;
+                int storedState = (int) (data >>> 16) & 0xFFFF;
+                int storedThreshold = (int) (data >>> 32);
+                if (storedG < g || (storedG == g && storedThreshold == threshold && storedState == pruneState)) {
+                    cutoffs++;
+                    return true;
+                }
+                entries[slot + 1] = pack(threshold, pruneState, g);
+                return false;
+            }
+            if (key == 0) {
+                victim = slot;
+                break;
+            }
+            long data = entries[slot + 1];
+            // 旧阈值的条目先被替换，同一阈值下替换 g 最大的
+            long score = ((long) (threshold - (int) (data >>> 32)) << 32) + ((int) data & 0xFFFF);
+            if (score > victimScore) {
+                victimScore = score;
+                victim = slot;
+            }
+        }
+        entries[victim] = hash;
+        entries[victim + 1] = pack(threshold, pruneState, g);
+        return false;
+    }
+
+    private static long pack(int threshold, int pruneState, int g) {
+        return (long) threshold << 32 | (long) (pruneState & 0xFFFF) << 16 | (g & 0xFFFF);
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0L);
+        probes = 0;
+        hits = 0;
+        cutoffs = 0;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * 因命中而被剪掉的子树数。
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+}
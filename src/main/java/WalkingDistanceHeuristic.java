@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 步行距离（Walking Distance）：只看每一行中各方块的目标行分布，
+ * 把空格与相邻行任意方块交换视为一步，预先对所有分布做广度优先搜索得到步数；列方向同理，两者相加。
+ * 搜索中每走一步只需查一次转移表，代价为 O(1)。
+ */
+public class WalkingDistanceHeuristic implements Heuristic {
+    public static final int MAX_LINES = 4;
+
+    private final int rows;
+    private final int cols;
+    private final Table vertical;
+    private final Table horizontal;
+
+    public WalkingDistanceHeuristic(int rows, int cols) {
+        if (!supports(rows, cols)) {
+            throw new IllegalArgumentException("Walking distance supports boards up to " + MAX_LINES + "x" + MAX_LINES);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.vertical = new Table(rows, cols);
+        this.horizontal = new Table(cols, rows);
+    }
+
+    public static boolean supports(int rows, int cols) {
+        return rows >= 2 && cols >= 2 && rows <= MAX_LINES && cols <= MAX_LINES;
+    }
+
+    @Override
+    public long init(int[] board) {
+        int[] rowCounts = new int[rows * rows];
+        int[] colCounts = new int[cols * cols];
+        int blankRow = 0;
+        int blankCol = 0;
+        for (int pos = 0; pos < board.length; pos++) {
+            int tile = board[pos];
+            if (tile == 0) {
+                blankRow = pos / cols;
+                blankCol = pos % cols;
+            } else {
+                rowCounts[(pos / cols) * rows + (tile - 1) / cols]++;
+                colCounts[(pos % cols) * cols + (tile - 1) % cols]++;
+            }
+        }
+        int verticalId = vertical.idOf(rowCounts, blankRow);
+        int horizontalId = horizontal.idOf(colCounts, blankCol);
+        return ((long) verticalId << 32) | horizontalId;
+    }
+
+    @Override
+    public long update(long state, int[] board, int[] positions, int tile, int from, int to) {
+        int verticalId = (int) (state >>> 32);
+        int horizontalId = (int) state;
+        if (from / cols == to / cols) {
+            // 方块左右移动，空格从 to 所在列移到 from 所在列
+            int direction = from % cols < to % cols ? 0 : 1;
+            horizontalId = horizontal.next(horizontalId, direction, (tile - 1) % cols);
+        } else {
+            int direction = from / cols < to / cols ? 0 : 1;
+            verticalId = vertical.next(verticalId, direction, (tile - 1) / cols);
+        }
+        return ((long) verticalId << 32) | horizontalId;
+    }
+
+    @Override
+    public int value(long state) {
+        return vertical.distance((int) (state >>> 32)) + horizontal.distance((int) state);
+    }
+
+    /**
+     * 单一方向的步行距离表。lines 条线，每条线 lineLength 格，目标状态空格位于最后一条线。
+     * 状态编码：空格所在线占最低 2 位，其上依次是 counts[line * lines + goalLine]，每项 3 位。
+     */
+    private static final class Table {
+        private final int lines;
+        private final Map<Long, Integer> ids = new HashMap<>();
+        private final byte[] distances;
+        private final int[] transitions;
+
+        Table(int lines, int lineLength) {
+            this.lines = lines;
+            List<Long> codes = new ArrayList<>();
+            List<Integer> depths = new ArrayList<>();
+            int[] goal = new int[lines * lines];
+            for (int line = 0; line < lines; line++) {
+                goal[line * lines + line] = line == lines - 1 ? lineLength - 1 : lineLength;
+            }
+            long goalCode = encode(goal, lines - 1);
+            ids.put(goalCode, 0);
+            codes.add(goalCode);
+            depths.add(0);
+
+            int[] counts = new int[lines * lines];
+            for (int head = 0; head < codes.size(); head++) {
+                int blankLine = decode(codes.get(head), counts);
+                for (int direction = 0; direction < 2; direction++) {
+                    int other = direction == 0 ? blankLine - 1 : blankLine + 1;
+                    if (other < 0 || other >= lines) {
+                        continue;
+                    }
+                    for (int goalLine = 0; goalLine < lines; goalLine++) {
+                        if (counts[other * lines + goalLine] == 0) {
+                            continue;
+                        }
+                        counts[other * lines + goalLine]--;
+                        counts[blankLine * lines + goalLine]++;
+                        long code = encode(counts, other);
+                        if (!ids.containsKey(code)) {
+                            ids.put(code, codes.size());
+                            codes.add(code);
+                            depths.add(depths.get(head) + 1);
+                        }
+                        counts[other * lines + goalLine]++;
+                        counts[blankLine * lines + goalLine]--;
+                    }
+                }
+            }
+
+            distances = new byte[codes.size()];
+            transitions = new int[codes.size() * 2 * lines];
+            Arrays.fill(transitions, -1);
+            for (int id = 0; id < codes.size(); id++) {
+                distances[id] = (byte) (int) depths.get(id);
+                int blankLine = decode(codes.get(id), counts);
+                for (int direction = 0; direction < 2; direction++) {
+                    int other = direction == 0 ? blankLine - 1 : blankLine + 1;
+                    if (other < 0 || other >= lines) {
+                        continue;
+                    }
+                    for (int goalLine = 0; goalLine < lines; goalLine++) {
+                        if (counts[other * lines + goalLine] == 0) {
+                            continue;
+                        }
+                        counts[other * lines + goalLine]--;
+                        counts[blankLine * lines + goalLine]++;
+                        transitions[(id * 2 + direction) * lines + goalLine] = ids.get(encode(counts, other));
+                        counts[other * lines + goalLine]++;
+                        counts[blankLine * lines + goalLine]--;
+                    }
+                }
+            }
+        }
+
+        int idOf(int[] counts, int blankLine) {
+            Integer id = ids.get(encode(counts, blankLine));
+            if (id == null) {
+                throw new IllegalArgumentException("Unreachable walking distance state");
+            }
+            return id;
+        }
+
+        /**
+         * 空格向上（direction 0）或向下（direction 1）与目标线为 goalLine 的方块交换后的状态。
+         */
+        int next(int id, int direction, int goalLine) {
+            return transitions[(id * 2 + direction) * lines + goalLine];
+        }
+
+        int distance(int id) {
+            return distances[id];
+        }
+
+        private long encode(int[] counts, int blankLine) {
+            long code = 0L;
+            for (int i = counts.length - 1; i >= 0; i--) {
+                code = (code << 3) | counts[i];
+            }
+            return (code << 2) | blankLine;
+        }
+
+        private int decode(long code, int[] counts) {
+            int blankLine = (int) (code & 3);
+            code >>>= 2;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = (int) (code & 7);
+                code >>>= 3;
+            }
+            return blankLine;
+        }
+    }
+}